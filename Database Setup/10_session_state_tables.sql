@@ -0,0 +1,41 @@
+-- Shared driver session state for running several engine instances
+-- Only needed when the engine runs with app.session-store.type=postgres
+-- t_session_login_state is UNLOGGED: not WAL logged and emptied after a crash, which only
+-- costs drivers a new verification code and resets their failed login count.
+-- t_session_revoked_token is logged: emptied after a crash it would accept logged-out tokens
+-- again until they expire; it is only written on logout, so WAL costs little
+-- expires_at / *_expires_at / window_start: epoch milliseconds, the engine sweeps expired rows
+
+-- Clear if they exsist
+DROP TABLE IF EXISTS t_session_verification_code;
+DROP TABLE IF EXISTS t_session_login_attempt;
+DROP TABLE IF EXISTS t_session_login_state;
+DROP TABLE IF EXISTS t_session_revoked_token;
+
+
+-- Verification code sent by SMS and failed logins within the rate limit window, one row per phone
+-- phone_key: digits of the phone number with country code, 201-341-2426 -> 12013412426
+CREATE UNLOGGED TABLE t_session_login_state (
+    phone_key BIGINT PRIMARY KEY,
+    code VARCHAR(6),
+    code_expires_at BIGINT NOT NULL,
+    attempts INTEGER NOT NULL,
+    window_start BIGINT NOT NULL,
+    expires_at BIGINT NOT NULL
+);
+
+-- Revoked JWT ids, kept until the token itself expires
+CREATE TABLE t_session_revoked_token (
+    jti UUID PRIMARY KEY,
+    expires_at BIGINT NOT NULL
+);
+
+CREATE INDEX idx_session_login_state_expires ON t_session_login_state(expires_at);
+CREATE INDEX idx_session_revoked_token_expires ON t_session_revoked_token(expires_at);
+
+GRANT ALL PRIVILEGES ON TABLE t_session_login_state TO qulronwebapp;
+GRANT ALL PRIVILEGES ON TABLE t_session_revoked_token TO qulronwebapp;
+
+
+SELECT * FROM t_session_login_state;
+SELECT * FROM t_session_revoked_token;
@@ -0,0 +1,141 @@
+-- Change feed of driver loads for the engine's active-load directory and dashboard versions
+-- Every insert, delete and change of status or phone number in t_load_master adds a row, and so
+-- does every change of a load's trailer or tasks; each engine instance reads the rows after the
+-- last change_id it has seen and drops or bumps its cached state for the phone.
+-- Covers every writer: the engine, the admin backend and the pg_cron WMS procedures
+-- The engine deletes rows older than app.load-directory.feed-retention-minutes
+-- Every row is also sent on the load_change channel, so listening engines react within
+-- milliseconds and the polled feed only catches up what a listener missed
+
+-- Clear if they exsist
+DROP TRIGGER IF EXISTS trg_load_master_change ON t_load_master;
+DROP TRIGGER IF EXISTS trg_task_load_change ON t_task;
+DROP TRIGGER IF EXISTS trg_trailer_load_change ON t_trailer;
+DROP TRIGGER IF EXISTS trg_load_change_notify ON t_load_change;
+DROP FUNCTION IF EXISTS record_load_master_change();
+DROP FUNCTION IF EXISTS record_load_child_change();
+DROP FUNCTION IF EXISTS notify_load_change();
+DROP TABLE IF EXISTS t_load_change;
+
+
+CREATE TABLE t_load_change (
+    change_id BIGSERIAL PRIMARY KEY,
+    lm_id BIGINT NOT NULL,
+    load_id VARCHAR(30) NOT NULL,
+    phone_number VARCHAR(12) NOT NULL,
+    status VARCHAR(10),
+    source CHAR(1) NOT NULL DEFAULT 'L',
+    change_type CHAR(1) NOT NULL,
+    changed_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Source
+-- L LOAD: t_load_master, the load itself
+-- T TASK: t_task of the load
+-- R TRAILER: t_trailer of the load
+
+-- Change Type
+-- I INSERTED: BROKER SUBMITTED THE LOAD
+-- U UPDATED: STATUS OR PHONE NUMBER CHANGED
+-- D DELETED: LOAD REMOVED (ADMIN CANCELLATION)
+
+CREATE INDEX idx_load_change_changed_at ON t_load_change(changed_at);
+
+-- SECURITY DEFINER: the admin backend and the pg_cron procedures write t_load_master as other
+-- roles, they do not need their own grants on t_load_change
+CREATE OR REPLACE FUNCTION record_load_master_change()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO t_load_change (lm_id, load_id, phone_number, status, change_type)
+        VALUES (OLD.lm_id, OLD.load_id, OLD.phone_number, NULL, 'D');
+        RETURN OLD;
+    END IF;
+
+    -- Full entity saves list every column, only real changes are recorded
+    IF TG_OP = 'UPDATE' AND NEW.status IS NOT DISTINCT FROM OLD.status
+        AND NEW.phone_number IS NOT DISTINCT FROM OLD.phone_number THEN
+        RETURN NEW;
+    END IF;
+
+    -- The old number no longer has this load
+    IF TG_OP = 'UPDATE' AND NEW.phone_number IS DISTINCT FROM OLD.phone_number THEN
+        INSERT INTO t_load_change (lm_id, load_id, phone_number, status, change_type)
+        VALUES (OLD.lm_id, OLD.load_id, OLD.phone_number, NEW.status, 'U');
+    END IF;
+
+    INSERT INTO t_load_change (lm_id, load_id, phone_number, status, change_type)
+    VALUES (NEW.lm_id, NEW.load_id, NEW.phone_number, NEW.status, LEFT(TG_OP, 1));
+    RETURN NEW;
+END;
+$$;
+
+-- Position checkpoints only update the coordinates and never fire it
+CREATE TRIGGER trg_load_master_change
+    AFTER INSERT OR DELETE OR UPDATE OF status, phone_number ON t_load_master
+    FOR EACH ROW EXECUTE FUNCTION record_load_master_change();
+
+-- Task and trailer changes, recorded against the phone of their load
+-- TG_ARGV[0]: source, T or R
+CREATE OR REPLACE FUNCTION record_load_child_change()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+DECLARE
+    v_lm_id BIGINT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        v_lm_id := OLD.lm_id;
+    ELSE
+        v_lm_id := NEW.lm_id;
+    END IF;
+
+    -- No row when the load itself is being deleted, its own change is recorded
+    INSERT INTO t_load_change (lm_id, load_id, phone_number, status, source, change_type)
+    SELECT lm.lm_id, lm.load_id, lm.phone_number, lm.status, TG_ARGV[0], LEFT(TG_OP, 1)
+    FROM t_load_master lm
+    WHERE lm.lm_id = v_lm_id;
+
+    IF TG_OP = 'DELETE' THEN
+        RETURN OLD;
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_task_load_change
+    AFTER INSERT OR DELETE OR UPDATE OF status, destination_area, destination_location ON t_task
+    FOR EACH ROW EXECUTE FUNCTION record_load_child_change('T');
+
+CREATE TRIGGER trg_trailer_load_change
+    AFTER INSERT OR DELETE OR UPDATE OF trailer_number ON t_trailer
+    FOR EACH ROW EXECUTE FUNCTION record_load_child_change('R');
+
+-- Payload: source:lm_id:phone_number
+-- Sent on commit; identical payloads of one transaction are folded into one, so a procedure
+-- creating many tasks for a load notifies once
+CREATE OR REPLACE FUNCTION notify_load_change()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM pg_notify('load_change', NEW.source || ':' || NEW.lm_id || ':' || NEW.phone_number);
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER trg_load_change_notify
+    AFTER INSERT ON t_load_change
+    FOR EACH ROW EXECUTE FUNCTION notify_load_change();
+
+GRANT ALL PRIVILEGES ON TABLE t_load_change TO qulronwebapp;
+GRANT USAGE, SELECT ON SEQUENCE t_load_change_change_id_seq TO qulronwebapp;
+
+
+SELECT * FROM t_load_change;
@@ -0,0 +1,23 @@
+-- Tells the engine to reload its in-memory yard location index
+-- Any statement changing t_yard_location sends one notification on the yard_location_change
+-- channel at commit; the engine also reloads on app.yard-location.reload-interval-ms
+
+-- Clear if they exsist
+DROP TRIGGER IF EXISTS trg_yard_location_notify ON t_yard_location;
+DROP FUNCTION IF EXISTS notify_yard_location_change();
+
+
+CREATE OR REPLACE FUNCTION notify_yard_location_change()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    PERFORM pg_notify('yard_location_change', '');
+    RETURN NULL;
+END;
+$$;
+
+-- Per statement, a bulk import notifies once
+CREATE TRIGGER trg_yard_location_notify
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON t_yard_location
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_yard_location_change();
@@ -1,3 +1,4 @@
+DROP TABLE IF EXISTS t_driver_track;
 DROP TABLE IF EXISTS t_driver_location;
 DROP TABLE IF EXISTS t_task;
 DROP TABLE IF EXISTS t_trailer;
@@ -7,6 +8,7 @@ DROP TABLE IF EXISTS t_open_load;
 DROP TABLE IF EXISTS t_load_master;
 DROP TABLE IF EXISTS t_order;
 DROP TABLE IF EXISTS t_yard_location;
+DROP TABLE IF EXISTS t_geofence;
 DROP TABLE IF EXISTS t_open_order;
 
 
@@ -114,6 +116,8 @@ CREATE TABLE t_load_master
 CREATE INDEX idx_load_master_load_id ON t_load_master(load_id);
 CREATE INDEX idx_load_master_broker_name ON t_load_master(broker_name);
 CREATE INDEX idx_load_master_status ON t_load_master(status);
+-- Active load of a driver, looked up by the engine on every driver request
+CREATE INDEX idx_load_master_phone_status ON t_load_master(phone_number, status);
 
 
 -- Load Status
@@ -137,6 +141,8 @@ CREATE INDEX idx_load_detail_load_id ON t_load_detail(load_id);
 CREATE INDEX idx_load_detail_order_number ON t_load_detail(order_number);
 CREATE INDEX idx_load_detail_load_order ON t_load_detail(load_id, order_number);
 CREATE INDEX idx_load_detail_status ON t_load_detail(status);
+-- Order numbers of a load in entry order, read by the driver dashboard
+CREATE INDEX idx_load_detail_load_ld ON t_load_detail(load_id, ld_id) INCLUDE (order_number);
 
 
 -- Orders Status
@@ -208,6 +214,8 @@ CREATE TABLE t_task (
 CREATE INDEX idx_task_lm_id ON t_task(lm_id);
 CREATE INDEX idx_task_status ON t_task(status);
 CREATE INDEX idx_task_destination_area ON t_task(destination_area);
+-- Latest open task of a load, read by the driver dashboard
+CREATE INDEX idx_task_lm_status ON t_task(lm_id, status, task_id);
 
 CREATE TABLE t_yard_location (
     yl_id BIGSERIAL PRIMARY KEY,
@@ -226,10 +234,33 @@ CREATE TABLE t_yard_location (
 -- indexes for better performance
 CREATE INDEX idx_yard_location_warehouse_code ON t_yard_location(task_destination_area);
 CREATE INDEX idx_yard_location_task_location ON t_yard_location(task_destination_location);
+CREATE INDEX idx_yard_location_task_area_location ON t_yard_location(task_destination_area, task_destination_location);
+
+-- Geofence zones loaded by the engine and refreshed periodically
+-- zone_type: FACILITY, GATE, DOCK, YARD
+-- task_destination_area links DOCK/YARD zones to t_yard_location area codes
+-- polygon: vertices as 'lat lng' pairs separated by commas, not closed (first point is not repeated)
+CREATE TABLE t_geofence (
+    gf_id BIGSERIAL PRIMARY KEY,
+    zone_code VARCHAR(30) NOT NULL,
+    zone_type VARCHAR(20) NOT NULL,
+    task_destination_area VARCHAR(5),
+    polygon TEXT NOT NULL,
+    active BOOLEAN NOT NULL DEFAULT true,
+    record_create_id VARCHAR(30) NOT NULL,
+    record_create_date TIMESTAMP NOT NULL,
+    record_update_id VARCHAR(30),
+    record_update_date TIMESTAMP,
+
+    CONSTRAINT uk_geofence_zone_code
+        UNIQUE(zone_code)
+);
 
 -- Driver Location Tracking Table
+-- Partitioned by day on location_timestamp, partitions are created ahead and dropped
+-- after the retention period by manage_driver_location_partitions() (see 6_pg_cron_jobs.sql)
 CREATE TABLE t_driver_location (
-    dl_id BIGSERIAL PRIMARY KEY,
+    dl_id BIGSERIAL,
     lm_id BIGINT NOT NULL,
     latitude DECIMAL(16,13) NOT NULL,
     longitude DECIMAL(16,13) NOT NULL,
@@ -244,18 +275,120 @@ CREATE TABLE t_driver_location (
     location_timestamp TIMESTAMP NOT NULL,
     record_create_id VARCHAR(30) NOT NULL,
     record_create_date TIMESTAMP NOT NULL,
+
+    -- Primary key must include the partition key
+    CONSTRAINT pk_driver_location
+        PRIMARY KEY(dl_id, location_timestamp),
     
     -- Foreign key to link with load master
     CONSTRAINT fk_driver_location_load_master
         FOREIGN KEY(lm_id) REFERENCES t_load_master(lm_id),
     
     -- Unique constraint for performance
+    -- Also serves per-load range scans (lm_id, location_timestamp), so no separate lm_id index
     CONSTRAINT uk_driver_location_load_timestamp
         UNIQUE(lm_id, location_timestamp)
-);
+) PARTITION BY RANGE (location_timestamp);
+
+-- Catches fixes with a timestamp outside the managed range (bad device clocks)
+CREATE TABLE t_driver_location_default PARTITION OF t_driver_location DEFAULT;
+
+-- Engine allocates dl_id values in blocks of 50 so location inserts can be JDBC batched
+-- Must match allocationSize on DriverLocation in qulron-engine
+ALTER SEQUENCE t_driver_location_dl_id_seq INCREMENT BY 50;
+
+-- Create daily partitions up to p_days_ahead days from today and drop the ones that ended
+-- more than p_retention_days days ago. Dropping a partition replaces bulk DELETEs.
+-- Each day is handled on its own, one failing day does not stop the others or the retention.
+-- A new day's partition is filled from the rows the default partition already holds for that
+-- day before it is attached, otherwise attaching it would fail on them.
+CREATE OR REPLACE FUNCTION manage_driver_location_partitions(
+    p_days_ahead INTEGER DEFAULT 7,
+    p_retention_days INTEGER DEFAULT 90
+)
+RETURNS VOID
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_day DATE;
+    v_partition_name TEXT;
+    v_partition RECORD;
+    v_moved BIGINT;
+    v_purged BIGINT;
+    v_cutoff DATE := CURRENT_DATE - p_retention_days;
+BEGIN
+    -- Create missing partitions from yesterday (late uploads) up to p_days_ahead
+    FOR v_day IN SELECT generate_series(CURRENT_DATE - 1, CURRENT_DATE + p_days_ahead, INTERVAL '1 day')::DATE
+    LOOP
+        v_partition_name := 't_driver_location_p' || to_char(v_day, 'YYYYMMDD');
+        IF to_regclass(v_partition_name) IS NULL THEN
+            BEGIN
+                EXECUTE format('CREATE TABLE %I (LIKE t_driver_location INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                               v_partition_name);
+                EXECUTE format('WITH moved AS (DELETE FROM t_driver_location_default ' ||
+                               'WHERE location_timestamp >= %L AND location_timestamp < %L RETURNING *) ' ||
+                               'INSERT INTO %I SELECT * FROM moved',
+                               v_day, v_day + 1, v_partition_name);
+                GET DIAGNOSTICS v_moved = ROW_COUNT;
+                EXECUTE format('ALTER TABLE t_driver_location ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               v_partition_name, v_day, v_day + 1);
+                RAISE NOTICE 'Created partition % with % rows moved from the default partition', v_partition_name, v_moved;
+            EXCEPTION WHEN OTHERS THEN
+                RAISE WARNING 'Failed to create partition %: %', v_partition_name, SQLERRM;
+            END;
+        END IF;
+    END LOOP;
+
+    -- Detach and drop expired partitions
+    FOR v_partition IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 't_driver_location'::regclass
+          AND c.relname ~ '^t_driver_location_p[0-9]{8}$'
+          AND to_date(substring(c.relname FROM '[0-9]{8}$'), 'YYYYMMDD') < v_cutoff
+    LOOP
+        BEGIN
+            EXECUTE format('ALTER TABLE t_driver_location DETACH PARTITION %I', v_partition.relname);
+            EXECUTE format('DROP TABLE %I', v_partition.relname);
+            RAISE NOTICE 'Dropped partition %', v_partition.relname;
+        EXCEPTION WHEN OTHERS THEN
+            RAISE WARNING 'Failed to drop partition %: %', v_partition.relname, SQLERRM;
+        END;
+    END LOOP;
+
+    -- Same retention for the rows that landed in the default partition
+    DELETE FROM t_driver_location_default WHERE location_timestamp < v_cutoff;
+    GET DIAGNOSTICS v_purged = ROW_COUNT;
+    IF v_purged > 0 THEN
+        RAISE NOTICE 'Purged % expired rows from the default partition', v_purged;
+    END IF;
+END;
+$$;
+
+-- Create the initial partitions
+SELECT manage_driver_location_partitions();
+
+-- Compacted driver track, one row per FINISHED load
+-- Written by the engine once the load is FINISHED so route history reads one row
+-- track: GZIP of the fixes in time order, each fix as (lat * 1e6, lng * 1e6, epoch seconds)
+--        delta encoded against the previous fix with the polyline character encoding
+CREATE TABLE t_driver_track (
+    dt_id BIGSERIAL PRIMARY KEY,
+    lm_id BIGINT NOT NULL,
+    point_count INTEGER NOT NULL,
+    start_timestamp TIMESTAMP,
+    end_timestamp TIMESTAMP,
+    track BYTEA NOT NULL,
+    record_create_id VARCHAR(30) NOT NULL,
+    record_create_date TIMESTAMP NOT NULL,
 
--- indexes for better performance
-CREATE INDEX idx_driver_location_lm_id ON t_driver_location(lm_id);
+    CONSTRAINT fk_driver_track_load_master
+        FOREIGN KEY(lm_id) REFERENCES t_load_master(lm_id),
+
+    CONSTRAINT uk_driver_track_lm_id
+        UNIQUE(lm_id)
+);
 
 
 -- Grants for all tables qulronwebapp
@@ -268,7 +401,9 @@ GRANT ALL PRIVILEGES ON TABLE t_order TO qulronwebapp;
 GRANT ALL PRIVILEGES ON TABLE t_trailer TO qulronwebapp;
 GRANT ALL PRIVILEGES ON TABLE t_task TO qulronwebapp;
 GRANT SELECT ON TABLE t_yard_location TO qulronwebapp;
+GRANT SELECT ON TABLE t_geofence TO qulronwebapp;
 GRANT ALL PRIVILEGES ON TABLE t_driver_location TO qulronwebapp;
+GRANT ALL PRIVILEGES ON TABLE t_driver_track TO qulronwebapp;
 
 -- Grants for sequences (auto-generated by BIGSERIAL)
 GRANT USAGE, SELECT ON SEQUENCE t_open_load_ol_id_seq TO qulronwebapp;
@@ -281,6 +416,7 @@ GRANT USAGE, SELECT ON SEQUENCE t_trailer_trailer_id_seq TO qulronwebapp;
 GRANT USAGE, SELECT ON SEQUENCE t_task_task_id_seq TO qulronwebapp;
 GRANT USAGE, SELECT ON SEQUENCE t_yard_location_yl_id_seq TO qulronwebapp;
 GRANT USAGE, SELECT ON SEQUENCE t_driver_location_dl_id_seq TO qulronwebapp;
+GRANT USAGE, SELECT ON SEQUENCE t_driver_track_dt_id_seq TO qulronwebapp;
 
 
 INSERT INTO t_yard_location(task_destination_area,task_destination_location,area,location,latitude,longitude,record_create_id, record_create_date) VALUES
@@ -626,6 +762,16 @@ INSERT INTO t_yard_location(task_destination_area,task_destination_location,area
 ('AB01','N65','Yard','N65',40.5220062689024,-74.3274200591649,'DUMMY',NOW()),
 ('AB01','N66','Yard','N66',40.522003293172,-74.327383957539,'DUMMY',NOW());
 
+-- Facility boundary used for arrival check-in
+INSERT INTO t_geofence(zone_code,zone_type,task_destination_area,polygon,active,record_create_id,record_create_date) VALUES
+('EDISON_FACILITY','FACILITY',NULL,
+ '40.52302959924054 -74.32324877112171, 40.523202602650116 -74.32639714054851, 40.522228010948794 -74.32654886919558, '
+ '40.52255095415221 -74.3299172453026, 40.51962710810491 -74.3305014006403, 40.5191945756738 -74.3267461166252, '
+ '40.51901579475845 -74.32685232666907, 40.51868130020615 -74.32425018037173, 40.52066517452486 -74.32373430297169, '
+ '40.5205556016006 -74.32201976919733, 40.51801230609231 -74.32154182395904, 40.518219925668284 -74.32056317406513, '
+ '40.520930455590985 -74.32133699016521, 40.52114383308044 -74.32358257414191, 40.52298923171724 -74.32334739472645',
+ true,'DUMMY',NOW());
+
 SELECT * FROM t_open_load;
 SELECT * FROM t_open_load_detail;
 SELECT * FROM t_open_order;
@@ -640,6 +786,8 @@ SELECT * FROM t_trailer;
 
 
 SELECT COUNT(1) FROM t_yard_location;
+SELECT * FROM t_geofence;
+SELECT * FROM t_driver_track;
 
 
 
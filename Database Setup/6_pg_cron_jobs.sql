@@ -16,6 +16,14 @@ SELECT cron.schedule(
     $$
 );
 
+-- Maintain t_driver_location partitions daily at 1 AM UTC
+-- Creates the next 7 days and drops days older than 90 days
+SELECT cron.schedule(
+    'driver-location-partitions',
+    '0 1 * * *',
+    'SELECT manage_driver_location_partitions(7, 90);'
+);
+
 UPDATE
 
 SELECT pg_reload_conf();
@@ -30,6 +38,12 @@ WHERE jobid = (SELECT jobid FROM cron.job WHERE jobname = 'sequential-processor-
 ORDER BY start_time DESC
 LIMIT 10;
 
+-- Check job run history for driver location partition maintenance
+SELECT * FROM cron.job_run_details 
+WHERE jobid = (SELECT jobid FROM cron.job WHERE jobname = 'driver-location-partitions')
+ORDER BY start_time DESC
+LIMIT 10;
+
 -- Check job run history for clean up cron job
 SELECT * FROM cron.job_run_details 
 WHERE jobid = (SELECT jobid FROM cron.job WHERE jobname = 'cleanup_cron_job_log')
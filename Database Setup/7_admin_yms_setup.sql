@@ -31,4 +31,6 @@ GRANT ALL PRIVILEGES ON TABLE t_order TO qulronadminwebapp;
 GRANT ALL PRIVILEGES ON TABLE t_trailer TO qulronadminwebapp;
 GRANT ALL PRIVILEGES ON TABLE t_task TO qulronadminwebapp;
 GRANT SELECT ON TABLE t_yard_location TO qulronadminwebapp;
-GRANT ALL PRIVILEGES ON TABLE t_driver_location TO qulronadminwebapp;
\ No newline at end of file
+GRANT SELECT ON TABLE t_geofence TO qulronadminwebapp;
+GRANT ALL PRIVILEGES ON TABLE t_driver_location TO qulronadminwebapp;
+GRANT SELECT ON TABLE t_driver_track TO qulronadminwebapp;
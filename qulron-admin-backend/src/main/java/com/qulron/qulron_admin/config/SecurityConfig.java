@@ -2,6 +2,7 @@ package com.qulron.qulron_admin.config;
 
 
 import com.qulron.qulron_admin.service.UserDetailService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -38,8 +39,10 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
         httpSecurity.csrf(AbstractHttpConfigurer::disable) // Since JWT is stateless authentication, CSRF protection is not needed.
                 .cors(Customizer.withDefaults()) // Uses the default CORS settings (configured separately in CorsConfig).
+                // Async dispatches of the live position stream were authorized with the original request
                 .authorizeHttpRequests(request ->
-                        request.requestMatchers("/health").permitAll()
+                        request.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                .requestMatchers("/health").permitAll()
                                 .requestMatchers("/user_management/admin/**").hasAnyAuthority("ADMIN")
                                 .requestMatchers("/user_management/user/**", "/order_management/**").hasAnyAuthority("USER", "ADMIN")
                                 .requestMatchers("/user_management/auth/**").permitAll()
@@ -3,12 +3,17 @@ package com.qulron.qulron_admin.controller;
 import com.qulron.qulron_admin.dto.ActiveLoadResponseDTO;
 import com.qulron.qulron_admin.dto.UnBookedOrderResponseDTO;
 import com.qulron.qulron_admin.dto.BookedOrderResponseDTO;
+import com.qulron.qulron_admin.dto.RouteHistoryDTO;
+import com.qulron.qulron_admin.service.DriverLocationService;
+import com.qulron.qulron_admin.service.LivePositionBroadcaster;
 import com.qulron.qulron_admin.service.OrderService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -19,9 +24,14 @@ public class OrderController {
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
     private final OrderService orderService;
+    private final LivePositionBroadcaster livePositionBroadcaster;
+    private final DriverLocationService driverLocationService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, LivePositionBroadcaster livePositionBroadcaster,
+                           DriverLocationService driverLocationService) {
         this.orderService = orderService;
+        this.livePositionBroadcaster = livePositionBroadcaster;
+        this.driverLocationService = driverLocationService;
     }
 
     @GetMapping("/unbooked_orders")
@@ -73,6 +83,31 @@ public class OrderController {
         }
     }
 
+    /**
+     * Stream of active load positions - a "snapshot" event with the same content as /active-loads,
+     * then "positions" events with only the loads that changed
+     */
+    @GetMapping(path = "/active-loads/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamActiveLoads(@RequestParam(required = false) Long minIntervalMs,
+                                                        HttpServletRequest request) {
+
+        logger.info("Active loads stream requested from IP: {}", getClientIpAddress(request));
+
+        ActiveLoadResponseDTO snapshot = orderService.getActiveLoads(request);
+        if (snapshot.getStatusCode() != 200) {
+            logger.warn("Failed to build active loads snapshot - Status: {} Message: {}",
+                    snapshot.getStatusCode(), snapshot.getMessage());
+            return ResponseEntity.status(snapshot.getStatusCode()).build();
+        }
+
+        SseEmitter emitter = livePositionBroadcaster.subscribe(snapshot, minIntervalMs);
+        if (emitter == null) {
+            logger.warn("Active loads stream rejected, subscriber limit reached");
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     /**
      * Get last location for a specific order
      */
@@ -112,43 +147,37 @@ public class OrderController {
 //    }
 
     /**
-     * Get route history for a specific order
+     * Get route history for a load as an encoded polyline, tolerance in meters
      */
-//    @GetMapping("/order/{orderNumber}/route-history")
-//    public ResponseEntity<DriverLocationDTO> getRouteHistory(
-//            @PathVariable String orderNumber,
-//            HttpServletRequest request) {
-//
-//        logger.info("Route history request received for order: {} from IP: {}",
-//                orderNumber, getClientIpAddress(request));
-//
-//        try {
-//            DriverLocationDTO response = driverLocationService.getRouteHistory(request, orderNumber);
-//
-//            // Log successful retrieval
-//            if (response.getStatusCode() == 200) {
-//                int pointCount = response.getDriverLocations() != null ? response.getDriverLocations().size() : 0;
-//                logger.info("Route history retrieved successfully for order: {} - Points: {}",
-//                        orderNumber, pointCount);
-//            } else {
-//                logger.warn("Failed to retrieve route history for order: {} - Status: {} Message: {}",
-//                        orderNumber, response.getStatusCode(), response.getMessage());
-//            }
-//
-//            return ResponseEntity.status(response.getStatusCode()).body(response);
-//
-//        } catch (Exception e) {
-//            logger.error("Error retrieving route history for order: {} - Error: {}",
-//                    orderNumber, e.getMessage(), e);
-//
-//            // Create error response
-//            DriverLocationDTO errorResponse = new DriverLocationDTO();
-//            errorResponse.setStatusCode(500);
-//            errorResponse.setMessage("Internal server error occurred while retrieving route history");
-//
-//            return ResponseEntity.status(500).body(errorResponse);
-//        }
-//    }
+    @GetMapping("/route-history/{load_id}")
+    public ResponseEntity<RouteHistoryDTO> getRouteHistory(@PathVariable String load_id,
+                                                           @RequestParam(required = false) Double tolerance,
+                                                           HttpServletRequest request) {
+
+        logger.info("Route history request received for load: {} from IP: {}",
+                load_id, getClientIpAddress(request));
+
+        try {
+            RouteHistoryDTO response = driverLocationService.getRouteHistory(load_id, tolerance);
+
+            if (response.getStatusCode() != 200) {
+                logger.warn("Failed to retrieve route history for load: {} - Status: {} Message: {}",
+                        load_id, response.getStatusCode(), response.getMessage());
+            }
+
+            return ResponseEntity.status(response.getStatusCode()).body(response);
+
+        } catch (Exception e) {
+            logger.error("Error retrieving route history for load: {} - Error: {}",
+                    load_id, e.getMessage(), e);
+
+            RouteHistoryDTO errorResponse = new RouteHistoryDTO();
+            errorResponse.setStatusCode(500);
+            errorResponse.setMessage("Internal server error occurred while retrieving route history");
+
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
 
     /**
      * Health check endpoint for location service
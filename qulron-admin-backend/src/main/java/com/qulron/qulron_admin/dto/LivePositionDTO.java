@@ -0,0 +1,26 @@
+package com.qulron.qulron_admin.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * One change pushed on /order_management/active-loads/stream.
+ * Driver fields are only sent when the load first appears; removed is only sent when it
+ * is no longer active.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LivePositionDTO {
+    private String loadId;
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+    private String driverName;
+    private String phoneNumber;
+    private Boolean removed;
+}
@@ -0,0 +1,32 @@
+package com.qulron.qulron_admin.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Route of a load as a Google encoded polyline (precision 5), simplified to toleranceMeters
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RouteHistoryDTO {
+    private int statusCode;
+    private String error;
+    private String message;
+    private String messageCode;
+    private String loadId;
+    private String polyline;
+    private Double toleranceMeters;
+    private Integer pointCount;
+    private Integer simplifiedPointCount;
+    private LocalDateTime startTimestamp;
+    private LocalDateTime endTimestamp;
+    private Boolean compacted;
+    // Only the newest max-raw-points fixes of a load without a compacted track were read
+    private Boolean truncated;
+}
@@ -52,7 +52,8 @@ public class DriverLocation {
     @Column(name = "destination_warehouse", length = 30)
     private String destinationWarehouse;
 
-    @Column(name = "location_timestamp", nullable = false)
+    // Partition key of t_driver_location, an update would move the row to another partition
+    @Column(name = "location_timestamp", nullable = false, updatable = false)
     private LocalDateTime locationTimestamp;
 
     @Column(name = "record_create_id", nullable = false, length = 30)
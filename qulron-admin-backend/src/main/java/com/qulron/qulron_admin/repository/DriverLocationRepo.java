@@ -1,9 +1,34 @@
 package com.qulron.qulron_admin.repository;
 
 import com.qulron.qulron_admin.entity.DriverLocation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface DriverLocationRepo extends JpaRepository<DriverLocation, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Coordinates only, for route history of loads without a compacted track
+     */
+    interface TrackPoint {
+        BigDecimal getLatitude();
+
+        BigDecimal getLongitude();
+
+        LocalDateTime getLocationTimestamp();
+    }
+
+    /**
+     * Newest first, the caller limits how many are read
+     */
+    @Query("SELECT dl.latitude AS latitude, dl.longitude AS longitude, dl.locationTimestamp AS locationTimestamp " +
+            "FROM DriverLocation dl WHERE dl.loadMaster.id = :lmId ORDER BY dl.locationTimestamp DESC")
+    List<TrackPoint> findLatestTrackPoints(@Param("lmId") Long lmId, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package com.qulron.qulron_admin.repository;
+
+import com.qulron.qulron_admin.entity.DriverTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DriverTrackRepo extends JpaRepository<DriverTrack, Long> {
+    Optional<DriverTrack> findByLmId(Long lmId);
+}
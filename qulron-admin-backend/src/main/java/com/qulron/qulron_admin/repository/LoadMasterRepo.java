@@ -12,5 +12,6 @@ import java.util.Optional;
 public interface LoadMasterRepo extends JpaRepository<LoadMaster, Long> {
     List<LoadMaster> findByLoadStatusIn(List<Status> statuses);
     Optional<LoadMaster> findByLoadIdAndLoadStatusIn(String loadId, List<Status> loadStatuses);
+    Optional<LoadMaster> findTopByLoadIdOrderByIdDesc(String loadId);
 
 }
@@ -2,18 +2,29 @@ package com.qulron.qulron_admin.service;
 
 
 import com.qulron.qulron_admin.dto.DriverLocationDTO;
+import com.qulron.qulron_admin.dto.RouteHistoryDTO;
+import com.qulron.qulron_admin.entity.DriverTrack;
+import com.qulron.qulron_admin.entity.LoadMaster;
 import com.qulron.qulron_admin.entity.Order;
 import com.qulron.qulron_admin.enums.Status;
 import com.qulron.qulron_admin.repository.DriverLocationRepo;
+import com.qulron.qulron_admin.repository.DriverTrackRepo;
+import com.qulron.qulron_admin.repository.LoadMasterRepo;
 import com.qulron.qulron_admin.repository.OrderRepo;
 import com.qulron.qulron_admin.utility.DeviceFingerprintUtils;
 import com.qulron.qulron_admin.utility.JWTUtils;
+import com.qulron.qulron_admin.utility.TrackUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -23,14 +34,34 @@ public class DriverLocationService {
 
     private final DriverLocationRepo driverLocationRepo;
 
+    private final DriverTrackRepo driverTrackRepo;
+
+    private final LoadMasterRepo loadMasterRepo;
+
     private final OrderRepo orderRepo;
 
     private final JWTUtils jwtUtils;
 
     private final DeviceFingerprintUtils deviceFingerprintUtils;
 
-    public DriverLocationService(DriverLocationRepo driverLocationRepo, OrderRepo orderRepo, JWTUtils jwtUtils, DeviceFingerprintUtils deviceFingerprintUtils) {
+    private final double DEFAULT_TOLERANCE_METERS;
+
+    private final double MAX_TOLERANCE_METERS;
+
+    private final int MAX_RAW_POINTS;
+
+    public DriverLocationService(DriverLocationRepo driverLocationRepo, DriverTrackRepo driverTrackRepo,
+                                 LoadMasterRepo loadMasterRepo, OrderRepo orderRepo, JWTUtils jwtUtils,
+                                 DeviceFingerprintUtils deviceFingerprintUtils,
+                                 @Value("${app.route-history.default-tolerance-meters:10}") double defaultToleranceMeters,
+                                 @Value("${app.route-history.max-tolerance-meters:1000}") double maxToleranceMeters,
+                                 @Value("${app.route-history.max-raw-points:1000}") int maxRawPoints) {
         this.driverLocationRepo = driverLocationRepo;
+        this.driverTrackRepo = driverTrackRepo;
+        this.loadMasterRepo = loadMasterRepo;
+        DEFAULT_TOLERANCE_METERS = defaultToleranceMeters;
+        MAX_TOLERANCE_METERS = maxToleranceMeters;
+        MAX_RAW_POINTS = maxRawPoints;
         this.orderRepo = orderRepo;
         this.jwtUtils = jwtUtils;
         this.deviceFingerprintUtils = deviceFingerprintUtils;
@@ -115,56 +146,89 @@ public class DriverLocationService {
      */
 
     /**
-     * Get route history for a specific order with pagination
-     * Production-ready with performance optimization
+     * Get route history for a load as an encoded polyline, simplified to the given tolerance.
+     * Finished loads are read from their compacted track, others from t_driver_location.
      */
-
-    /*
-    public DriverLocationDTO getRouteHistory(HttpServletRequest request, String orderNumber) {
-        DriverLocationDTO response = new DriverLocationDTO();
+    @Transactional(readOnly = true)
+    public RouteHistoryDTO getRouteHistory(String loadId, Double toleranceMeters) {
+        RouteHistoryDTO response = new RouteHistoryDTO();
 
         try {
-            // Step 1: Validate request and extract token
-            String username = validateAndExtractUsername(request, response);
-            if (username == null) {
-                return response; // Error already set
+            // Step 1: Validate input
+            if (loadId == null || loadId.trim().isEmpty()) {
+                response.setStatusCode(400);
+                response.setMessage("Load id is required");
+                return response;
             }
-
-            // Step 2: Validate order number
-            if (orderNumber == null || orderNumber.trim().isEmpty()) {
+            double tolerance = toleranceMeters != null ? toleranceMeters : DEFAULT_TOLERANCE_METERS;
+            if (tolerance < 0 || tolerance > MAX_TOLERANCE_METERS) {
                 response.setStatusCode(400);
-                response.setMessage("Order number is required");
+                response.setMessage("Tolerance must be between 0 and " + MAX_TOLERANCE_METERS + " meters");
                 return response;
             }
 
-            // Step 3: Get route history for the order (limit to last 1000 points for
-            // performance)
-            List<DriverLocation> routeHistory = driverLocationRepo
-                    .findByOrderNumberOrderByLocationTimestampDesc(orderNumber.trim());
-
-            if (routeHistory.isEmpty()) {
+            Optional<LoadMaster> loadMaster = loadMasterRepo.findTopByLoadIdOrderByIdDesc(loadId.trim());
+            if (loadMaster.isEmpty()) {
                 response.setStatusCode(404);
-                response.setMessage("No route history found for order: " + orderNumber);
+                response.setMessage("Load not found: " + loadId);
                 return response;
             }
+            Long lmId = loadMaster.get().getId();
+
+            // Step 2: Read the track, compacted blob first
+            TrackUtils.Track track;
+            Optional<DriverTrack> driverTrack = driverTrackRepo.findByLmId(lmId);
+            if (driverTrack.isPresent()) {
+                track = TrackUtils.decodeTrack(driverTrack.get().getTrack(), driverTrack.get().getPointCount());
+                response.setStartTimestamp(driverTrack.get().getStartTimestamp());
+                response.setEndTimestamp(driverTrack.get().getEndTimestamp());
+                response.setCompacted(true);
+            } else {
+                // Load still running or not compacted yet, only its newest fixes are read
+                List<DriverLocationRepo.TrackPoint> points = new ArrayList<>(
+                        driverLocationRepo.findLatestTrackPoints(lmId, PageRequest.of(0, MAX_RAW_POINTS + 1)));
+                if (points.size() > MAX_RAW_POINTS) {
+                    points.remove(points.size() - 1);
+                    response.setTruncated(true);
+                    log.warn("Route history truncated to {} points for load: {}", MAX_RAW_POINTS, loadId);
+                }
+                Collections.reverse(points);
+                double[] lats = new double[points.size()];
+                double[] lngs = new double[points.size()];
+                for (int i = 0; i < points.size(); i++) {
+                    lats[i] = points.get(i).getLatitude().doubleValue();
+                    lngs[i] = points.get(i).getLongitude().doubleValue();
+                }
+                track = new TrackUtils.Track(lats, lngs, new long[0]);
+                if (!points.isEmpty()) {
+                    response.setStartTimestamp(points.get(0).getLocationTimestamp());
+                    response.setEndTimestamp(points.get(points.size() - 1).getLocationTimestamp());
+                }
+                response.setCompacted(false);
+            }
 
-            // Step 4: Limit results for performance (last 1000 points)
-            if (routeHistory.size() > 1000) {
-                routeHistory = routeHistory.subList(0, 1000);
-                log.warn("Route history truncated to 1000 points for order: {}", orderNumber);
+            if (track.size() == 0) {
+                response.setStatusCode(404);
+                response.setMessage("No route history found for load: " + loadId);
+                return response;
             }
 
-            // Step 5: Set successful response
+            // Step 3: Simplify and encode
+            int[] kept = TrackUtils.simplify(track.lats(), track.lngs(), tolerance);
+
             response.setStatusCode(200);
             response.setMessage("Route history retrieved successfully");
-            response.setOrderNumber(orderNumber);
-            response.setDriverLocations(routeHistory);
+            response.setLoadId(loadId.trim());
+            response.setToleranceMeters(tolerance);
+            response.setPointCount(track.size());
+            response.setSimplifiedPointCount(kept.length);
+            response.setPolyline(TrackUtils.encodePolyline(track.lats(), track.lngs(), kept));
 
-            log.info("Route history retrieved for order: {}. Points: {} by phone: {}",
-                    orderNumber, routeHistory.size(), username);
+            log.info("Route history retrieved for load: {}. Points: {} simplified to {}",
+                    loadId, track.size(), kept.length);
 
         } catch (Exception e) {
-            log.error("Unexpected error retrieving route history for order: " + orderNumber, e);
+            log.error("Unexpected error retrieving route history for load: {}", loadId, e);
             response.setStatusCode(500);
             response.setMessage("Internal server error occurred");
         }
@@ -172,8 +236,6 @@ public class DriverLocationService {
         return response;
     }
 
-    */
-
     // ========== PRIVATE HELPER METHODS ==========
 
     /**
@@ -0,0 +1,252 @@
+package com.qulron.qulron_admin.service;
+
+import com.qulron.qulron_admin.dto.ActiveLoadResponseDTO;
+import com.qulron.qulron_admin.dto.LivePositionDTO;
+import com.qulron.qulron_admin.entity.LoadMaster;
+import com.qulron.qulron_admin.enums.Status;
+import com.qulron.qulron_admin.repository.LoadMasterRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes driver position changes of active loads to connected admin dashboards.
+ * t_load_master is read once per poll interval no matter how many dashboards are connected;
+ * each client gets a snapshot on connect and afterwards only the loads that changed, coalesced
+ * per load and sent at most once per the client's push interval. A new client's first changes
+ * are taken against its own snapshot, so nothing that moved in between is lost.
+ */
+@Service
+@Slf4j
+public class LivePositionBroadcaster {
+
+    private static final List<Status> ACTIVE_STATUSES = List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED);
+
+    private final LoadMasterRepo loadMasterRepo;
+    private final long POLL_INTERVAL;
+    private final long MIN_PUSH_INTERVAL;
+    private final long HEARTBEAT_INTERVAL;
+    private final long EMITTER_TIMEOUT;
+    private final int MAX_SUBSCRIBERS;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Positions as of the last poll, only touched by the scheduler thread
+    private Map<String, Position> lastPositions = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public LivePositionBroadcaster(LoadMasterRepo loadMasterRepo,
+                                   @Value("${app.live-positions.poll-interval-ms:2000}") long pollInterval,
+                                   @Value("${app.live-positions.min-push-interval-ms:1000}") long minPushInterval,
+                                   @Value("${app.live-positions.heartbeat-interval-ms:15000}") long heartbeatInterval,
+                                   @Value("${app.live-positions.emitter-timeout-ms:1800000}") long emitterTimeout,
+                                   @Value("${app.live-positions.max-subscribers:200}") int maxSubscribers) {
+        this.loadMasterRepo = loadMasterRepo;
+        POLL_INTERVAL = pollInterval;
+        MIN_PUSH_INTERVAL = minPushInterval;
+        HEARTBEAT_INTERVAL = heartbeatInterval;
+        EMITTER_TIMEOUT = emitterTimeout;
+        MAX_SUBSCRIBERS = maxSubscribers;
+    }
+
+    // A missing coordinate is kept as 0/0, as in the snapshot
+    private record Position(BigDecimal latitude, BigDecimal longitude, String driverName, String phoneNumber) {
+        private Position {
+            if (latitude == null || longitude == null) {
+                latitude = BigDecimal.ZERO;
+                longitude = BigDecimal.ZERO;
+            }
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final long pushInterval;
+        // Pending changes per loadId, a newer change for the same load replaces the older one
+        private final Map<String, LivePositionDTO> pending = new LinkedHashMap<>();
+        // Positions of the snapshot, until the first poll after it has been diffed against them
+        private Map<String, Position> baseline;
+        private long lastSentAt;
+
+        private Subscriber(SseEmitter emitter, long pushInterval, Map<String, Position> baseline) {
+            this.emitter = emitter;
+            this.pushInterval = pushInterval;
+            this.baseline = baseline;
+            this.lastSentAt = System.currentTimeMillis();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Live-Position-Broadcaster");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::tick, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * Register a dashboard and send it the snapshot, returns null when the subscriber limit is reached
+     */
+    public SseEmitter subscribe(ActiveLoadResponseDTO snapshot, Long requestedPushInterval) {
+        if (subscribers.size() >= MAX_SUBSCRIBERS) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        long pushInterval = Math.max(MIN_PUSH_INTERVAL, requestedPushInterval != null ? requestedPushInterval : 0);
+        Subscriber subscriber = new Subscriber(emitter, pushInterval, toPositions(snapshot));
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(snapshot));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        subscribers.add(subscriber);
+        log.info("Live position subscriber connected, {} connected", subscribers.size());
+        return emitter;
+    }
+
+    private void tick() {
+        try {
+            if (subscribers.isEmpty()) {
+                // No polling while nobody listens, new subscribers start from their own snapshot
+                lastPositions = new HashMap<>();
+                return;
+            }
+
+            Map<String, Position> current = pollPositions();
+            List<LivePositionDTO> changes = diff(lastPositions, current);
+            lastPositions = current;
+
+            long now = System.currentTimeMillis();
+            for (Subscriber subscriber : subscribers) {
+                synchronized (subscriber) {
+                    List<LivePositionDTO> subscriberChanges = changes;
+                    if (subscriber.baseline != null) {
+                        subscriberChanges = diff(subscriber.baseline, current);
+                        subscriber.baseline = null;
+                    }
+                    for (LivePositionDTO change : subscriberChanges) {
+                        subscriber.pending.put(change.getLoadId(), change);
+                    }
+                    flush(subscriber, now);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Unexpected error broadcasting live positions", e);
+        }
+    }
+
+    private Map<String, Position> pollPositions() {
+        Map<String, Position> current = new HashMap<>();
+        for (LoadMaster loadMaster : loadMasterRepo.findByLoadStatusIn(ACTIVE_STATUSES)) {
+            current.put(loadMaster.getLoadId(), new Position(loadMaster.getLastDriverLatitude(),
+                    loadMaster.getLastDriverLongitude(), loadMaster.getDriverName(), loadMaster.getPhoneNumber()));
+        }
+        return current;
+    }
+
+    private static Map<String, Position> toPositions(ActiveLoadResponseDTO snapshot) {
+        Map<String, Position> positions = new HashMap<>();
+        if (snapshot.getActiveLoadInfoList() != null) {
+            for (ActiveLoadResponseDTO.ActiveLoadInfo info : snapshot.getActiveLoadInfoList()) {
+                positions.put(info.getLoadId(), new Position(info.getLatitude(), info.getLongitude(),
+                        info.getDriverName(), info.getPhoneNumber()));
+            }
+        }
+        return positions;
+    }
+
+    private static List<LivePositionDTO> diff(Map<String, Position> previousPositions, Map<String, Position> current) {
+        List<LivePositionDTO> changes = new ArrayList<>();
+        for (Map.Entry<String, Position> entry : current.entrySet()) {
+            Position previous = previousPositions.get(entry.getKey());
+            Position position = entry.getValue();
+            if (previous == null) {
+                changes.add(toChange(entry.getKey(), position, true));
+            } else if (previous.latitude().compareTo(position.latitude()) != 0
+                    || previous.longitude().compareTo(position.longitude()) != 0) {
+                changes.add(toChange(entry.getKey(), position, false));
+            }
+        }
+        for (String loadId : previousPositions.keySet()) {
+            if (!current.containsKey(loadId)) {
+                LivePositionDTO removed = new LivePositionDTO();
+                removed.setLoadId(loadId);
+                removed.setRemoved(true);
+                changes.add(removed);
+            }
+        }
+        return changes;
+    }
+
+    private static LivePositionDTO toChange(String loadId, Position position, boolean added) {
+        LivePositionDTO change = new LivePositionDTO();
+        change.setLoadId(loadId);
+        change.setLatitude(position.latitude());
+        change.setLongitude(position.longitude());
+        if (added) {
+            change.setDriverName(position.driverName());
+            change.setPhoneNumber(position.phoneNumber());
+        }
+        return change;
+    }
+
+    private void flush(Subscriber subscriber, long now) {
+        if (now - subscriber.lastSentAt < subscriber.pushInterval) {
+            return;
+        }
+
+        try {
+            if (!subscriber.pending.isEmpty()) {
+                subscriber.emitter.send(SseEmitter.event().name("positions").data(new ArrayList<>(subscriber.pending.values())));
+                subscriber.pending.clear();
+                subscriber.lastSentAt = now;
+            } else if (now - subscriber.lastSentAt >= HEARTBEAT_INTERVAL) {
+                // Keeps proxies from closing an idle stream
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                subscriber.lastSentAt = now;
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Live position subscriber disconnected: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+}
@@ -349,6 +349,7 @@ public class OrderService {
                 LoadMaster loadMaster = loadMap.get(loadId);
 
                 if (loadMaster != null) {
+                    // Last driver position is checkpointed by the engine every few seconds, not per ping
                     // Set default coordinates if null
                     if (loadMaster.getLastDriverLatitude() == null || loadMaster.getLastDriverLongitude() == null) {
                         loadMaster.setLastDriverLatitude(BigDecimal.valueOf(0));
@@ -0,0 +1,178 @@
+package com.qulron.qulron_admin.utility;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Route history helpers: decoding of the compacted t_driver_track blob written by the engine,
+ * Douglas-Peucker simplification with a tolerance in meters, and Google encoded polyline output.
+ */
+public final class TrackUtils {
+
+    private static final double TRACK_SCALE = 1e6;
+    private static final double POLYLINE_SCALE = 1e5;
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    private TrackUtils() {
+    }
+
+    /**
+     * Fixes in time order, as parallel arrays
+     */
+    public record Track(double[] lats, double[] lngs, long[] epochSeconds) {
+        public int size() {
+            return lats.length;
+        }
+    }
+
+    /**
+     * Decode a t_driver_track.track value: GZIP over (lat * 1e6, lng * 1e6, epoch seconds) deltas
+     * in polyline character encoding
+     */
+    public static Track decodeTrack(byte[] data, int pointCount) {
+        double[] lats = new double[pointCount];
+        double[] lngs = new double[pointCount];
+        long[] epochSeconds = new long[pointCount];
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            long lat = 0, lng = 0, time = 0;
+            for (int i = 0; i < pointCount; i++) {
+                lat += readValue(in);
+                lng += readValue(in);
+                time += readValue(in);
+                lats[i] = lat / TRACK_SCALE;
+                lngs[i] = lng / TRACK_SCALE;
+                epochSeconds[i] = time;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode track", e);
+        }
+        return new Track(lats, lngs, epochSeconds);
+    }
+
+    /**
+     * Douglas-Peucker, returns the positions of the points to keep in order.
+     * Distances are measured on a local flat projection, fine at the scale of a single route.
+     */
+    public static int[] simplify(double[] lats, double[] lngs, double toleranceMeters) {
+        int size = lats.length;
+        if (size <= 2 || toleranceMeters <= 0) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        // Project once to meters around the first point
+        double metersPerDegree = Math.toRadians(EARTH_RADIUS_METERS);
+        double lngFactor = metersPerDegree * Math.cos(Math.toRadians(lats[0]));
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = (lngs[i] - lngs[0]) * lngFactor;
+            ys[i] = (lats[i] - lats[0]) * metersPerDegree;
+        }
+
+        boolean[] keep = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+
+        // Iterative, a long straight drive would otherwise recurse once per point
+        Deque<int[]> segments = new ArrayDeque<>();
+        segments.push(new int[]{0, size - 1});
+        while (!segments.isEmpty()) {
+            int[] segment = segments.pop();
+            int first = segment[0];
+            int last = segment[1];
+
+            double maxDistance = 0;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(xs[i], ys[i], xs[first], ys[first], xs[last], ys[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                segments.push(new int[]{first, farthest});
+                segments.push(new int[]{farthest, last});
+            }
+        }
+
+        int count = 0;
+        for (boolean k : keep) {
+            if (k) {
+                count++;
+            }
+        }
+        int[] kept = new int[count];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (keep[i]) {
+                kept[j++] = i;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Google encoded polyline (precision 5) of the given points
+     */
+    public static String encodePolyline(double[] lats, double[] lngs, int[] indexes) {
+        StringBuilder polyline = new StringBuilder(indexes.length * 8);
+        long prevLat = 0, prevLng = 0;
+        for (int index : indexes) {
+            long lat = Math.round(lats[index] * POLYLINE_SCALE);
+            long lng = Math.round(lngs[index] * POLYLINE_SCALE);
+            appendValue(polyline, lat - prevLat);
+            appendValue(polyline, lng - prevLng);
+            prevLat = lat;
+            prevLng = lng;
+        }
+        return polyline.toString();
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return Math.hypot(px - ax, py - ay);
+        }
+        double t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+
+    private static void appendValue(StringBuilder out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while (zigzag >= 0x20) {
+            out.append((char) ((0x20 | (zigzag & 0x1f)) + 63));
+            zigzag >>>= 5;
+        }
+        out.append((char) (zigzag + 63));
+    }
+
+    private static long readValue(InputStream in) throws IOException {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.read();
+            if (b < 0) {
+                throw new IOException("Track data ends before the expected point count");
+            }
+            b -= 63;
+            result |= (long) (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return (result >>> 1) ^ -(result & 1);
+    }
+}
@@ -0,0 +1,164 @@
+package com.qulron.qulron_admin.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackUtilsTest {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    @Test
+    void decodesWhatTheEngineEncodes() {
+        double[] lats = {40.521108, 40.521542, 40.520001, -33.868820, 0.0};
+        double[] lngs = {-74.325181, -74.326007, -74.330120, 151.209290, 0.0};
+        long[] epochSeconds = {1_700_000_000L, 1_700_000_005L, 1_700_000_065L, 1_700_086_400L, 1_700_086_401L};
+
+        TrackUtils.Track track = TrackUtils.decodeTrack(encode(lats, lngs, epochSeconds), lats.length);
+
+        assertEquals(lats.length, track.size());
+        for (int i = 0; i < lats.length; i++) {
+            assertEquals(lats[i], track.lats()[i], 1e-9);
+            assertEquals(lngs[i], track.lngs()[i], 1e-9);
+        }
+        assertArrayEquals(epochSeconds, track.epochSeconds());
+    }
+
+    @Test
+    void decodeRoundsToMicroDegrees() {
+        TrackUtils.Track track = TrackUtils.decodeTrack(
+                encode(new double[]{40.5211081195984}, new double[]{-74.3251809089216}, new long[]{0}), 1);
+
+        assertEquals(40.521108, track.lats()[0], 1e-9);
+        assertEquals(-74.325181, track.lngs()[0], 1e-9);
+    }
+
+    @Test
+    void decodeFailsOnTruncatedData() {
+        byte[] data = encode(new double[]{40.5, 40.6}, new double[]{-74.3, -74.4}, new long[]{0, 1});
+
+        assertThrows(UncheckedIOException.class, () -> TrackUtils.decodeTrack(data, 3));
+    }
+
+    @Test
+    void encodesGooglePolylines() {
+        // Example from the encoded polyline algorithm format documentation
+        double[] lats = {38.5, 40.7, 43.252};
+        double[] lngs = {-120.2, -120.95, -126.453};
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", TrackUtils.encodePolyline(lats, lngs, new int[]{0, 1, 2}));
+        assertEquals("_p~iF~ps|U_c_\\fhde@", TrackUtils.encodePolyline(lats, lngs, new int[]{0, 2}));
+        assertEquals("", TrackUtils.encodePolyline(lats, lngs, new int[0]));
+    }
+
+    @Test
+    void straightLineKeepsOnlyItsEnds() {
+        double[] lats = new double[100];
+        double[] lngs = new double[100];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = 40.52 + i * 0.0001;
+            lngs[i] = -74.33 + i * 0.0001;
+        }
+
+        assertArrayEquals(new int[]{0, 99}, TrackUtils.simplify(lats, lngs, 1));
+    }
+
+    @Test
+    void cornerIsKept() {
+        double[] lats = {40.5200, 40.5210, 40.5220, 40.5220, 40.5220};
+        double[] lngs = {-74.3300, -74.3300, -74.3300, -74.3290, -74.3280};
+
+        assertArrayEquals(new int[]{0, 2, 4}, TrackUtils.simplify(lats, lngs, 5));
+    }
+
+    @Test
+    void zeroToleranceAndShortTracksKeepEveryPoint() {
+        double[] lats = {40.52, 40.53, 40.54};
+        double[] lngs = {-74.33, -74.33, -74.33};
+
+        assertArrayEquals(new int[]{0, 1, 2}, TrackUtils.simplify(lats, lngs, 0));
+        assertArrayEquals(new int[]{0, 1}, TrackUtils.simplify(new double[]{1, 2}, new double[]{1, 2}, 10));
+        assertArrayEquals(new int[0], TrackUtils.simplify(new double[0], new double[0], 10));
+    }
+
+    @Test
+    void everyDroppedPointIsWithinToleranceOfTheSimplifiedRoute() {
+        Random random = new Random(7);
+        double[] lats = new double[2000];
+        double[] lngs = new double[2000];
+        double lat = 40.52, lng = -74.33, heading = 0;
+        for (int i = 0; i < lats.length; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.6;
+            lat += Math.cos(heading) * 0.00005;
+            lng += Math.sin(heading) * 0.00005;
+            lats[i] = lat;
+            lngs[i] = lng;
+        }
+
+        for (double tolerance : new double[]{1, 10, 50}) {
+            int[] kept = TrackUtils.simplify(lats, lngs, tolerance);
+
+            assertEquals(0, kept[0]);
+            assertEquals(lats.length - 1, kept[kept.length - 1]);
+            assertTrue(kept.length < lats.length, "tolerance " + tolerance + " dropped nothing");
+            for (int k = 1; k < kept.length; k++) {
+                assertTrue(kept[k] > kept[k - 1]);
+                for (int i = kept[k - 1] + 1; i < kept[k]; i++) {
+                    double distance = distanceToSegment(lats, lngs, i, kept[k - 1], kept[k]);
+                    // The flat projection is centered on the first point, allow a little for it
+                    assertTrue(distance <= tolerance * 1.01, "point " + i + " is " + distance + " m off at tolerance " + tolerance);
+                }
+            }
+        }
+        assertTrue(TrackUtils.simplify(lats, lngs, 50).length < TrackUtils.simplify(lats, lngs, 1).length);
+    }
+
+    // Distance in meters from point i to the segment a-b, on a flat projection around point a
+    private static double distanceToSegment(double[] lats, double[] lngs, int i, int a, int b) {
+        double metersPerDegree = Math.toRadians(EARTH_RADIUS_METERS);
+        double lngFactor = metersPerDegree * Math.cos(Math.toRadians(lats[a]));
+        double px = (lngs[i] - lngs[a]) * lngFactor, py = (lats[i] - lats[a]) * metersPerDegree;
+        double bx = (lngs[b] - lngs[a]) * lngFactor, by = (lats[b] - lats[a]) * metersPerDegree;
+        double lengthSquared = bx * bx + by * by;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / lengthSquared));
+        return Math.hypot(px - t * bx, py - t * by);
+    }
+
+    // Same format as the engine's TrackCodec.encode
+    private static byte[] encode(double[] lats, double[] lngs, long[] epochSeconds) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            long prevLat = 0, prevLng = 0, prevTime = 0;
+            for (int i = 0; i < lats.length; i++) {
+                long lat = Math.round(lats[i] * 1e6);
+                long lng = Math.round(lngs[i] * 1e6);
+                writeValue(out, lat - prevLat);
+                writeValue(out, lng - prevLng);
+                writeValue(out, epochSeconds[i] - prevTime);
+                prevLat = lat;
+                prevLng = lng;
+                prevTime = epochSeconds[i];
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeValue(OutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while (zigzag >= 0x20) {
+            out.write((int) ((0x20 | (zigzag & 0x1f)) + 63));
+            zigzag >>>= 5;
+        }
+        out.write((int) (zigzag + 63));
+    }
+}
@@ -1,6 +1,6 @@
 import { CommonModule } from '@angular/common';
-import { Component, Input, ViewChild } from '@angular/core';
-import { BehaviorSubject } from 'rxjs';
+import { Component, Input, OnDestroy, ViewChild } from '@angular/core';
+import { BehaviorSubject, retry, Subscription } from 'rxjs';
 import { DynamicCompService } from '../../../core/service/dynamic-comp.service';
 import { OrderManagementService } from '../../../core/service/order-management.service';
 import { PopupService } from '../../../core/service/popup.service';
@@ -18,7 +18,7 @@ import { CustomMapComponent } from './custom-map/custom-map.component';
   templateUrl: './live-order-map.component.html',
   styleUrl: './live-order-map.component.css',
 })
-export class LiveOrderMapComponent {
+export class LiveOrderMapComponent implements OnDestroy {
   @Input() data: any;
   @ViewChild(CustomMapComponent) customMap!: CustomMapComponent;
   componentReady = new BehaviorSubject<boolean>(false);
@@ -31,6 +31,8 @@ export class LiveOrderMapComponent {
 
   activeLoads: any[] = [];
   filteredTableData: any[] = [];
+  searchText: string = '';
+  private liveStreamSubscription: Subscription | null = null;
 
   componentName: string = 'OrderList';
 
@@ -64,6 +66,12 @@ export class LiveOrderMapComponent {
     this.dcService.setButtonData(buttonData);
 
     this.loadActiveOrders();
+    this.startLiveStream();
+  }
+
+  ngOnDestroy() {
+    this.liveStreamSubscription?.unsubscribe();
+    this.liveStreamSubscription = null;
   }
 
   //*** Data Visibility ***/
@@ -151,14 +159,19 @@ export class LiveOrderMapComponent {
   }
 
   filterData(searchText: string) {
-    this.filteredTableData = this.activeLoads.filter((item) =>
+    this.searchText = searchText;
+    this.applyFilter();
+    this.currentPage = 1; // Reset to first page after filtering
+  }
+
+  applyFilter() {
+    this.filteredTableData = (this.activeLoads ?? []).filter((item) =>
       Object.values(item).some(
         (val) =>
           val != null &&
-          val.toString().toLowerCase().includes(searchText.toLowerCase())
+          val.toString().toLowerCase().includes(this.searchText.toLowerCase())
       )
     );
-    this.currentPage = 1; // Reset to first page after filtering
   }
 
   changePageSize(pageSize: number) {
@@ -208,6 +221,51 @@ export class LiveOrderMapComponent {
     }
   }
 
+  // Keeps the map current from the server's push stream; the snapshot it starts with
+  // replaces the list, so a reconnect after a dropped stream catches up
+  startLiveStream() {
+    const token = sessionStorage.getItem('token');
+    if (!token || this.liveStreamSubscription) return;
+
+    this.liveStreamSubscription = this.orderService
+      .streamActiveLoads(token)
+      .pipe(retry({ delay: 5000 }))
+      .subscribe(({ event, data }) => {
+        if (event === 'snapshot' && data?.statusCode == 200) {
+          this.activeLoads = data.activeLoadInfoList ?? [];
+          this.applyFilter();
+        } else if (event === 'positions') {
+          this.applyPositionChanges(data ?? []);
+        }
+      });
+  }
+
+  applyPositionChanges(changes: any[]) {
+    const loads = [...(this.activeLoads ?? [])];
+    let loadAdded = false;
+    for (const change of changes) {
+      const index = loads.findIndex((load) => load.loadId === change.loadId);
+      if (change.removed) {
+        if (index >= 0) loads.splice(index, 1);
+      } else if (index >= 0) {
+        loads[index] = {
+          ...loads[index],
+          latitude: change.latitude,
+          longitude: change.longitude,
+        };
+      } else {
+        loadAdded = true;
+      }
+    }
+    // New list reference, the map redraws its markers on input changes
+    this.activeLoads = loads;
+    this.applyFilter();
+    // Pushed changes carry no order numbers, new loads come with the full list
+    if (loadAdded) {
+      this.loadActiveOrders();
+    }
+  }
+
   async RefreshDriverLocations() {
     this.loadActiveOrders();
   }
@@ -71,4 +71,59 @@ export class OrderManagementService {
       })
     );
   }
+
+  // Live positions of active loads: a "snapshot" event with the active loads, then
+  // "positions" events with the loads that changed. EventSource cannot send the
+  // Authorization header, so the stream is read with fetch
+  streamActiveLoads(token: string): Observable<{ event: string; data: any }> {
+    const url = `${this.BASE_URL}/active-loads/stream`;
+    return new Observable<{ event: string; data: any }>((subscriber) => {
+      const controller = new AbortController();
+      fetch(url, {
+        headers: {
+          Authorization: `Bearer ${token}`,
+          Accept: 'text/event-stream',
+        },
+        signal: controller.signal,
+      })
+        .then(async (response) => {
+          if (!response.ok || !response.body) {
+            throw new Error(`Active loads stream failed: ${response.status}`);
+          }
+          const reader = response.body
+            .pipeThrough(new TextDecoderStream())
+            .getReader();
+          let buffer = '';
+          while (true) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += value;
+            // Events end with a blank line, heartbeats are comments without an event name
+            let boundary;
+            while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+              const lines = buffer.slice(0, boundary).split('\n');
+              buffer = buffer.slice(boundary + 2);
+              const eventLine = lines.find((line) => line.startsWith('event:'));
+              if (eventLine) {
+                const data = lines
+                  .filter((line) => line.startsWith('data:'))
+                  .map((line) => line.slice(5))
+                  .join('\n');
+                subscriber.next({
+                  event: eventLine.slice(6).trim(),
+                  data: data ? JSON.parse(data) : null,
+                });
+              }
+            }
+          }
+          subscriber.error(new Error('Active loads stream closed'));
+        })
+        .catch((error) => {
+          if (!controller.signal.aborted) {
+            subscriber.error(error);
+          }
+        });
+      return () => controller.abort();
+    });
+  }
 }
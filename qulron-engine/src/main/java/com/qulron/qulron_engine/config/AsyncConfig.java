@@ -0,0 +1,13 @@
+package com.qulron.qulron_engine.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables @Async listeners, they run on Spring Boot's applicationTaskExecutor
+ * (sized by the spring.task.execution.* properties)
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -1,5 +1,8 @@
 package com.qulron.qulron_engine.config;
 
+import com.qulron.qulron_engine.dto.DriverPrincipal;
+import com.qulron.qulron_engine.enums.Role;
+import com.qulron.qulron_engine.service.ActiveLoadDirectory;
 import com.qulron.qulron_engine.utility.DeviceFingerprintUtils;
 import com.qulron.qulron_engine.utility.JWTUtils;
 import jakarta.servlet.FilterChain;
@@ -18,6 +21,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JWTAuthFilter extends OncePerRequestFilter {
@@ -28,9 +32,12 @@ public class JWTAuthFilter extends OncePerRequestFilter {
 
     private final DeviceFingerprintUtils deviceFingerprintUtils;
 
-    public JWTAuthFilter(JWTUtils jwtUtils, DeviceFingerprintUtils deviceFingerprintUtils) {
+    private final ActiveLoadDirectory activeLoadDirectory;
+
+    public JWTAuthFilter(JWTUtils jwtUtils, DeviceFingerprintUtils deviceFingerprintUtils, ActiveLoadDirectory activeLoadDirectory) {
         this.jwtUtils = jwtUtils;
         this.deviceFingerprintUtils = deviceFingerprintUtils;
+        this.activeLoadDirectory = activeLoadDirectory;
     }
 
     // This method is executed for every request passing through the filter
@@ -80,8 +87,11 @@ public class JWTAuthFilter extends OncePerRequestFilter {
                     String role = jwtUtils.extractRole(jwtToken);
                     var authorities = List.of(new SimpleGrantedAuthority(role));
 
+                    // Services read the driver from here instead of re-validating the token
+                    DriverPrincipal principal = buildPrincipal(jwtToken, phoneNumber, role, currentDeviceFingerprint);
+
                     UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
-                            phoneNumber, null, authorities);
+                            principal, null, authorities);
                     token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
                     securityContext.setAuthentication(token);
@@ -100,4 +110,17 @@ public class JWTAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private DriverPrincipal buildPrincipal(String jwtToken, String phoneNumber, String role, String deviceFingerprint) {
+        Long lmId = null;
+        String loadId = null;
+        if (Role.DRIVER.getRole().equals(role)) {
+            Optional<ActiveLoadDirectory.ActiveLoad> activeLoad = activeLoadDirectory.find(phoneNumber);
+            if (activeLoad.isPresent()) {
+                lmId = activeLoad.get().lmId();
+                loadId = activeLoad.get().loadId();
+            }
+        }
+        return new DriverPrincipal(phoneNumber, role, deviceFingerprint, jwtUtils.extractLoginTime(jwtToken), lmId, loadId);
+    }
 }
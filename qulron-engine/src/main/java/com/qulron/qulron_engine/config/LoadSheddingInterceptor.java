@@ -0,0 +1,235 @@
+package com.qulron.qulron_engine.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive concurrency limit in front of the database (AIMD).
+ * Every adjust-interval-ms the limit on concurrent requests is cut by backoff-ratio when requests
+ * waited for a Hikari connection or the average request took longer than latency-threshold-ms,
+ * and raised by one when requests were shed or used most of it without either happening.
+ * LOW priority requests may only use low-priority-share of the limit and NORMAL ones
+ * normal-priority-share, so they are rejected with 503 first and HIGH ones keep getting through.
+ */
+@Component
+public class LoadSheddingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadSheddingInterceptor.class);
+
+    private static final String PERMIT_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".startedAt";
+
+    private final boolean ENABLED;
+    private final int MIN_LIMIT;
+    private final int MAX_LIMIT;
+    private final long ADJUST_INTERVAL;
+    private final long LATENCY_THRESHOLD_NANOS;
+    private final double BACKOFF_RATIO;
+    private final Map<RequestPriority.Level, Double> PRIORITY_SHARES = new EnumMap<>(RequestPriority.Level.class);
+
+    private final DataSource dataSource;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Samples of the current interval
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    // Priority of each handler method, resolved on its first request
+    private final Map<Method, RequestPriority.Level> handlerPriorities = new ConcurrentHashMap<>();
+    private final Map<RequestPriority.Level, Counter> shedCounters = new EnumMap<>(RequestPriority.Level.class);
+    private ScheduledExecutorService scheduler;
+
+    public LoadSheddingInterceptor(DataSource dataSource, MeterRegistry meterRegistry,
+                                   @Value("${app.load-shedding.enabled:true}") boolean enabled,
+                                   @Value("${app.load-shedding.initial-limit:40}") int initialLimit,
+                                   @Value("${app.load-shedding.min-limit:10}") int minLimit,
+                                   @Value("${app.load-shedding.max-limit:200}") int maxLimit,
+                                   @Value("${app.load-shedding.adjust-interval-ms:1000}") long adjustInterval,
+                                   @Value("${app.load-shedding.latency-threshold-ms:2000}") long latencyThreshold,
+                                   @Value("${app.load-shedding.backoff-ratio:0.9}") double backoffRatio,
+                                   @Value("${app.load-shedding.low-priority-share:0.5}") double lowPriorityShare,
+                                   @Value("${app.load-shedding.normal-priority-share:0.8}") double normalPriorityShare) {
+        this.dataSource = dataSource;
+        ENABLED = enabled;
+        MIN_LIMIT = minLimit;
+        MAX_LIMIT = maxLimit;
+        ADJUST_INTERVAL = adjustInterval;
+        LATENCY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(latencyThreshold);
+        BACKOFF_RATIO = backoffRatio;
+        PRIORITY_SHARES.put(RequestPriority.Level.LOW, lowPriorityShare);
+        PRIORITY_SHARES.put(RequestPriority.Level.NORMAL, normalPriorityShare);
+        PRIORITY_SHARES.put(RequestPriority.Level.HIGH, 1.0);
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+
+        Gauge.builder("load.shedding.limit", this, interceptor -> interceptor.limit)
+                .description("Current adaptive limit on concurrent requests")
+                .register(meterRegistry);
+        Gauge.builder("load.shedding.in.flight", inFlight, AtomicInteger::get)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+        for (RequestPriority.Level level : RequestPriority.Level.values()) {
+            shedCounters.put(level, Counter.builder("load.shedding.rejected")
+                    .description("Requests rejected by the adaptive concurrency limit")
+                    .tag("priority", level.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!ENABLED) {
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Load-Shedding-Limit");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::adjustLimit, ADJUST_INTERVAL, ADJUST_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!ENABLED) {
+            return true;
+        }
+
+        RequestPriority.Level priority = resolvePriority(handler);
+        double admitted = limit * PRIORITY_SHARES.get(priority);
+        int current = inFlight.incrementAndGet();
+        if (current > Math.max(1, admitted)) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            shedCounters.get(priority).increment();
+            logger.warn("Shedding {} priority {} {} - {} requests in flight, limit {}",
+                    priority, request.getMethod(), request.getRequestURI(), current - 1, (int) limit);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "5");
+            response.setContentType("text/plain");
+            response.getWriter().write("Server is experiencing high load. Please try again later.");
+            return false;
+        }
+
+        peakInFlight.accumulateAndGet(current, Math::max);
+        request.setAttribute(PERMIT_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Streaming responses hold no connection while they wait, they must not hold a permit either
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Long startedAt) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            inFlight.decrementAndGet();
+            latencyNanos.add(System.nanoTime() - startedAt);
+            completed.increment();
+        }
+    }
+
+    private RequestPriority.Level resolvePriority(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return RequestPriority.Level.NORMAL;
+        }
+
+        return handlerPriorities.computeIfAbsent(handlerMethod.getMethod(), method -> {
+            RequestPriority annotation = AnnotatedElementUtils.findMergedAnnotation(method, RequestPriority.class);
+            if (annotation == null) {
+                annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequestPriority.class);
+            }
+            return annotation == null ? RequestPriority.Level.NORMAL : annotation.value();
+        });
+    }
+
+    private void adjustLimit() {
+        try {
+            long count = completed.sumThenReset();
+            long rejected = shed.sumThenReset();
+            long totalLatency = latencyNanos.sumThenReset();
+            int peak = peakInFlight.getAndSet(inFlight.get());
+            int waitingForConnection = threadsAwaitingConnection();
+
+            boolean overloaded = waitingForConnection > 0
+                    || (count > 0 && totalLatency / count > LATENCY_THRESHOLD_NANOS);
+            double current = limit;
+            if (overloaded) {
+                limit = Math.max(MIN_LIMIT, current * BACKOFF_RATIO);
+                logger.debug("Concurrency limit decreased to {} - {} threads waiting for a connection, average latency {} ms",
+                        (int) limit, waitingForConnection, count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalLatency / count) : 0);
+            } else if (rejected > 0 || peak >= current * 0.9) {
+                // Only grow while the limit is actually what holds requests back
+                limit = Math.min(MAX_LIMIT, current + 1);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to adjust concurrency limit: {}", e.getMessage());
+        }
+    }
+
+    private int threadsAwaitingConnection() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+                // Null until the pool has started
+                return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+            }
+        } catch (SQLException e) {
+            logger.debug("Hikari pool not available: {}", e.getMessage());
+        }
+        return 0;
+    }
+}
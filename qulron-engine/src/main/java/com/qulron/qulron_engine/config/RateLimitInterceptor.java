@@ -1,40 +1,42 @@
 package com.qulron.qulron_engine.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
 
-    private static class BucketInfo{
-        final Bucket bucket;
-        final long createdAt;
+    private static final String DEFAULT_POLICY = "default";
 
-        BucketInfo(Bucket bucket){
-            this.bucket = bucket;
-            this.createdAt = System.currentTimeMillis();
-        }
-    }
     // Global rate limiting (Tier 1) - will be initialized in @PostConstruct
     private Bucket globalBucket;
-    // Per-IP rate limiting (Tier 2)
-    private final Map<String, BucketInfo> ipBuckets = new ConcurrentHashMap<>();
+    // Per-IP rate limiting (Tier 2), one set of buckets per policy name
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+    // Policy of each handler method, resolved on its first request
+    private final Map<Method, Policy> handlerPolicies = new ConcurrentHashMap<>();
 
     /// Configurations
     // Global rate limits
@@ -43,23 +45,32 @@ public class RateLimitInterceptor implements HandlerInterceptor {
     private final int requestsPerMinutePerIp;
     private final int strictRequestsPerTimeIntervalPerIp;
     private final int timeIntervalMinutes;
-    // Cleaning the bucket used for ip
-    private final int bucketCleanupMinutes;
-    private final int bucketMaxAgeMinutes;
+    private final long maxIpBuckets;
 
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
 
-    public RateLimitInterceptor(@Value("${rate.limit.requests-per-minute-global}") int requestsPerMinuteGlobal,
+
+    public RateLimitInterceptor(MeterRegistry meterRegistry, Environment environment,
+                                @Value("${rate.limit.requests-per-minute-global}") int requestsPerMinuteGlobal,
                                 @Value("${rate.limit.requests-per-minute-per-ip}") int requestsPerMinutePerIp,
                                 @Value("${rate.limit.strict-requests-per-time-interval-per-ip}") int strictRequestsPerTimeIntervalPerIp,
                                 @Value("${rate.limit.strict-time-interval-minutes}") int timeIntervalMinutes,
-                                @Value("${rate.limit.bucket-cleanup-minutes}") int bucketCleanupMinutes,
-                                @Value("${rate.limit.bucket-max-age-minutes}") int bucketMaxAgeMinutes) {
+                                @Value("${rate.limit.max-ip-buckets:100000}") long maxIpBuckets) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
         this.requestsPerMinuteGlobal = requestsPerMinuteGlobal;
         this.requestsPerMinutePerIp = requestsPerMinutePerIp;
         this.strictRequestsPerTimeIntervalPerIp = strictRequestsPerTimeIntervalPerIp;
         this.timeIntervalMinutes = timeIntervalMinutes;
-        this.bucketCleanupMinutes = bucketCleanupMinutes;
-        this.bucketMaxAgeMinutes = bucketMaxAgeMinutes;
+        this.maxIpBuckets = maxIpBuckets;
+    }
+
+    /**
+     * Limit of one policy and the per-IP buckets enforcing it.
+     * Bounded so a flood of spoofed X-Forwarded-For values cannot grow it.
+     */
+    private record Policy(String name, int capacity, Duration period, Cache<String, Bucket> ipBuckets) {
     }
 
     // Initialize the global bucket
@@ -67,9 +78,6 @@ public class RateLimitInterceptor implements HandlerInterceptor {
     public void init() {
         // Create global bucket AFTER properties are injected
         globalBucket = createBucket(requestsPerMinuteGlobal, Duration.ofMinutes(1));
-
-        // Get Back to This
-        startBucketCleanupTask();
     }
 
     // Rate limits Handler
@@ -85,10 +93,11 @@ public class RateLimitInterceptor implements HandlerInterceptor {
             return false;
         }
 
-        // Tier 2: Check per-IP rate limit
-        Bucket ipBucket = getIPBucket(clientIP, request);
+        // Tier 2: Check per-IP rate limit of the endpoint's policy
+        Policy policy = resolvePolicy(handler);
+        Bucket ipBucket = policy.ipBuckets().get(clientIP, ip -> createBucket(policy.capacity(), policy.period()));
         if (!ipBucket.tryConsume(1)) {
-            handleRateLimitExceeded(response,"IP", request.getMethod(), path, clientIP, "Rate limit exceeded for your IP: " + clientIP + ". Please try again later.");
+            handleRateLimitExceeded(response, "IP " + policy.name(), request.getMethod(), path, clientIP, "Rate limit exceeded for your IP: " + clientIP + ". Please try again later.");
             return false;
         }
 
@@ -97,34 +106,47 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         return true;
     }
 
-    private Bucket getIPBucket(String clientIP, HttpServletRequest request) {
-        boolean isStrictEndpoint = shouldUseStrictBucket(request);
-        String bucketKey = clientIP + (isStrictEndpoint ? "_strict" : "_normal");
-
-        // Double-checking locking pattern to ensure thread-safe bucket creation
-        BucketInfo existingBucket = ipBuckets.get(bucketKey);
-        if (existingBucket != null){
-            return existingBucket.bucket;
+    private Policy resolvePolicy(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return policy(DEFAULT_POLICY);
         }
 
-        synchronized (this){
-            // Check again that bucket doesn't exist in sync block
-            existingBucket = ipBuckets.get(bucketKey);
-            if (existingBucket != null){
-                return existingBucket.bucket;
+        return handlerPolicies.computeIfAbsent(handlerMethod.getMethod(), method -> {
+            RateLimitPolicy annotation = AnnotatedElementUtils.findMergedAnnotation(method, RateLimitPolicy.class);
+            if (annotation == null) {
+                annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RateLimitPolicy.class);
             }
+            return policy(annotation == null ? DEFAULT_POLICY : annotation.value());
+        });
+    }
 
-            // Create a new ip bucket
-            Bucket newBucket;
-            if(isStrictEndpoint) {
-                newBucket = createBucket(strictRequestsPerTimeIntervalPerIp, Duration.ofMinutes(timeIntervalMinutes));
-            } else {
-                newBucket = createBucket(requestsPerMinutePerIp, Duration.ofMinutes(1));
-            }
-            BucketInfo newBucketInfo = new BucketInfo(newBucket);
-            ipBuckets.put(bucketKey,newBucketInfo);
-            return newBucket;
+    private Policy policy(String name) {
+        return policies.computeIfAbsent(name, this::createPolicy);
+    }
+
+    private Policy createPolicy(String name) {
+        int capacity;
+        Duration period;
+        if (DEFAULT_POLICY.equals(name)) {
+            capacity = requestsPerMinutePerIp;
+            period = Duration.ofMinutes(1);
+        } else {
+            capacity = environment.getProperty("rate.limit.policy." + name + ".capacity",
+                    Integer.class, strictRequestsPerTimeIntervalPerIp);
+            period = Duration.ofMinutes(environment.getProperty("rate.limit.policy." + name + ".period-minutes",
+                    Integer.class, timeIntervalMinutes));
         }
+
+        // A bucket left alone for its refill period is full again, dropping it changes nothing
+        Cache<String, Bucket> ipBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(period.compareTo(Duration.ofMinutes(1)) < 0 ? Duration.ofMinutes(1) : period)
+                .maximumSize(maxIpBuckets)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ipBuckets, "rate.limit.ip.buckets", "policy", name);
+
+        logger.info("Rate limit policy {}: {} requests per {} minutes per IP", name, capacity, period.toMinutes());
+        return new Policy(name, capacity, period, ipBuckets);
     }
 
     private Bucket createBucket(int capacity, Duration duration) {
@@ -144,67 +166,11 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         response.getWriter().write(message);
     }
 
-    private void startBucketCleanupTask(){
-        Thread cleanupThread = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()){
-                try{
-                    Thread.sleep(Duration.ofMinutes(bucketCleanupMinutes).toMillis());
-                    cleanUpOldBuckets();
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        cleanupThread.setDaemon(true);
-        cleanupThread.setName("rate-limiting-cleanup");
-        cleanupThread.start();
-    }
-
-    private void cleanUpOldBuckets() {
-        int initialSize = ipBuckets.size();
-        if (initialSize == 0){
-            return;
-        }
-
-        long maxAgeMillis = Duration.ofMinutes(bucketMaxAgeMinutes).toMillis();
-        long currentTime = System.currentTimeMillis();
-        AtomicInteger removedCount = new AtomicInteger(0); //this is an overkill since it is a single thread, but it is what it is
-
-        // Remove buckets older than max age
-        ipBuckets.entrySet().removeIf(entry -> {
-            long bucketAge = currentTime - entry.getValue().createdAt;
-            if (bucketAge > maxAgeMillis) {
-                logger.debug("Removing old bucket for IP: {}",
-                        entry.getKey().replace("_strict", "").replace("_normal", ""));
-                removedCount.incrementAndGet();
-                return true;
-            }
-            return false;
-        });
-
-        if (removedCount.get() > 0) {
-            logger.info("Bucket cleanup: removed {} old buckets, {} remaining",
-                    removedCount.get(), ipBuckets.size());
-        }
-    }
-
-    // TODO: Add more endpoints to the list and remove the ones that are not
-    // sensitive
-    private boolean shouldUseStrictBucket(HttpServletRequest request) {
-        String path = request.getRequestURI();
-        return path.contains("/broker") ||
-                path.contains("/auth/request-code") ||
-                path.contains("/auth/verify-code") ||
-                path.contains("/trailer/new") ||
-                path.contains("/driver/arrival");
-    }
-
     private String getClientIP(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty() && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
+            int comma = xForwardedFor.indexOf(',');
+            return (comma < 0 ? xForwardedFor : xForwardedFor.substring(0, comma)).trim();
         }
 
         String xRealIP = request.getHeader("X-Real-IP");
@@ -0,0 +1,24 @@
+package com.qulron.qulron_engine.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Per-IP rate limit policy of a controller method, or of every method of a controller.
+ * Limits come from rate.limit.policy.{name}.capacity and .period-minutes and default to the
+ * strict limits; endpoints without a policy use rate.limit.requests-per-minute-per-ip.
+ * Each policy counts its own requests, endpoints sharing a name share the bucket.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RateLimitPolicy {
+
+    /**
+     * Policy name
+     */
+    String value();
+}
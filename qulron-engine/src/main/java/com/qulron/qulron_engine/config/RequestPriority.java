@@ -0,0 +1,27 @@
+package com.qulron.qulron_engine.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How early a controller method, or every method of a controller, is shed when the backend is
+ * overloaded (see LoadSheddingInterceptor). Endpoints without it are NORMAL.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RequestPriority {
+
+    Level value();
+
+    enum Level {
+        // Shed first: periodic traffic the client simply sends again, location pings and polls
+        LOW,
+        NORMAL,
+        // Shed last: a driver or broker is waiting on it
+        HIGH
+    }
+}
@@ -1,5 +1,6 @@
 package com.qulron.qulron_engine.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,7 +35,9 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
         httpSecurity.csrf(AbstractHttpConfigurer::disable)
                 .cors(Customizer.withDefaults())
-                .authorizeHttpRequests(request -> request.requestMatchers("/health").permitAll()
+                // Async dispatches of event streams were authorized with the original request
+                .authorizeHttpRequests(request -> request.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/health", "/actuator/**").permitAll()
                         .requestMatchers("/driver/data/**", "/trailer/**", "/driver/logout", "/routing/**")
                         .hasAnyAuthority("DRIVER")
                         .requestMatchers("/broker/**", "/driver/auth/**").permitAll()
@@ -9,9 +9,11 @@ public class WebConfig implements WebMvcConfigurer {
 
 
     private final RateLimitInterceptor rateLimitInterceptor;
+    private final LoadSheddingInterceptor loadSheddingInterceptor;
 
-    public WebConfig(RateLimitInterceptor rateLimitInterceptor){
+    public WebConfig(RateLimitInterceptor rateLimitInterceptor, LoadSheddingInterceptor loadSheddingInterceptor){
         this.rateLimitInterceptor = rateLimitInterceptor;
+        this.loadSheddingInterceptor = loadSheddingInterceptor;
     }
 
     @Override
@@ -19,5 +21,9 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addInterceptor(rateLimitInterceptor)
                 .addPathPatterns("/**")
                 .excludePathPatterns("/health");
+        // After the rate limits, so requests rejected there never take a permit
+        registry.addInterceptor(loadSheddingInterceptor)
+                .addPathPatterns("/**")
+                .excludePathPatterns("/health");
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.qulron.qulron_engine.controller;
 
+import com.qulron.qulron_engine.config.RateLimitPolicy;
+import com.qulron.qulron_engine.config.RequestPriority;
 import com.qulron.qulron_engine.dto.BrokerLoadDTO;
 import com.qulron.qulron_engine.service.BrokerService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,6 +15,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@RateLimitPolicy("broker")
+@RequestPriority(RequestPriority.Level.HIGH)
 @RequestMapping("/broker") // Remove /api since context-path adds it
 public class BrokerController {
     private static final Logger logger = LoggerFactory.getLogger(BrokerController.class);
@@ -1,18 +1,26 @@
 package com.qulron.qulron_engine.controller;
 
+import com.qulron.qulron_engine.config.RateLimitPolicy;
+import com.qulron.qulron_engine.config.RequestPriority;
 import com.qulron.qulron_engine.dto.DriverArrivalRequestDTO;
 import com.qulron.qulron_engine.dto.DriverArrivalResponseDTO;
 import com.qulron.qulron_engine.dto.DriverAuthDTO;
 import com.qulron.qulron_engine.dto.DriverDashboardDataDTO;
+import com.qulron.qulron_engine.dto.DriverPrincipal;
+import com.qulron.qulron_engine.service.DriverEventStream;
 import com.qulron.qulron_engine.service.DriverService;
-import com.qulron.qulron_engine.utility.DeviceFingerprintUtils;
+import com.qulron.qulron_engine.service.LoadVersionRegistry;
 import com.qulron.qulron_engine.utility.JWTUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 
@@ -26,20 +34,28 @@ public class DriverController {
 
     private final JWTUtils jwtUtils;
 
-    private final DeviceFingerprintUtils deviceFingerprintUtils;
+    private final LoadVersionRegistry loadVersionRegistry;
 
-    public DriverController(DriverService driverService, JWTUtils jwtUtils, DeviceFingerprintUtils deviceFingerprintUtils) {
+    private final DriverEventStream driverEventStream;
+
+    public DriverController(DriverService driverService, JWTUtils jwtUtils, LoadVersionRegistry loadVersionRegistry,
+                            DriverEventStream driverEventStream) {
         this.driverService = driverService;
         this.jwtUtils = jwtUtils;
-        this.deviceFingerprintUtils = deviceFingerprintUtils;
+        this.loadVersionRegistry = loadVersionRegistry;
+        this.driverEventStream = driverEventStream;
     }
 
+    @RateLimitPolicy("driver-auth")
+    @RequestPriority(RequestPriority.Level.HIGH)
     @PostMapping("/auth/request-code")
     public ResponseEntity<DriverAuthDTO> requestVerificationCode(@Valid  @RequestBody DriverAuthDTO request) {
         DriverAuthDTO response = driverService.requestVerificationCode(request.getPhoneNumber());
         return ResponseEntity.ok(response);
     }
 
+    @RateLimitPolicy("driver-auth")
+    @RequestPriority(RequestPriority.Level.HIGH)
     @PostMapping("/auth/verify-code")
     public ResponseEntity<DriverAuthDTO> verifyCodeAndLogin(@Valid @RequestBody DriverAuthDTO request,
                                                             HttpServletRequest httpRequest) {
@@ -49,51 +65,91 @@ public class DriverController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader, HttpServletRequest request) {
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader,
+                                    @AuthenticationPrincipal DriverPrincipal principal) {
         String token = authHeader.replace("Bearer ", "");
 
-        // Extract device fingerprint for audit logging
-        String deviceFingerprint = deviceFingerprintUtils.generateDeviceFingerprint(request);
-        String phoneNumber = jwtUtils.extractPhoneNumber(token);
-
         // Invalidate token on backend
         jwtUtils.blacklistToken(token);
 
-        logger.info("User logged out - Phone: {} Device: {}", phoneNumber, deviceFingerprint);
+        logger.info("User logged out - Phone: {} Device: {}", principal.phoneNumber(), principal.deviceFingerprint());
 
         return ResponseEntity.ok().body(Map.of("message", "Logged out successfully"));
     }
 
+    @RequestPriority(RequestPriority.Level.LOW)
     @GetMapping("/data/dashboard")
     public ResponseEntity<DriverDashboardDataDTO> getDriverDashboardData(
-            HttpServletRequest request,
-            @RequestParam(required = false) String lastUpdate) {
+            @AuthenticationPrincipal DriverPrincipal principal,
+            @RequestParam(required = false) String lastUpdate,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+
+        if (principal == null) {
+            return ResponseEntity.ok(driverService.getDashboardData(null));
+        }
 
-        // Add caching headers
-        DriverDashboardDataDTO response = driverService.getDashboardData(request);
+        // Read the version before the data, a change committed in between then fails the next check
+        String eTag = loadVersionRegistry.etag(principal.phoneNumber());
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header("Cache-Control", "no-cache, must-revalidate")
+                    .eTag(eTag)
+                    .build();
+        }
+
+        DriverDashboardDataDTO response = driverService.getDashboardData(principal);
 
         // Set cache headers to reduce unnecessary requests
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header("Cache-Control", "no-cache, must-revalidate");
+        // Errors are not versioned, they must not be answered with 304 later
+        if (response.getStatusCode() == 200) {
+            builder.eTag(eTag);
+        }
+        return builder.body(response);
+    }
+
+    // Pushes a load-change event whenever the dashboard should be fetched again
+    @RequestPriority(RequestPriority.Level.LOW)
+    @GetMapping(value = "/data/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamDriverEvents(@AuthenticationPrincipal DriverPrincipal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        SseEmitter emitter = driverEventStream.subscribe(principal.phoneNumber());
+        if (emitter == null) {
+            // The app keeps polling the dashboard instead
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         return ResponseEntity.ok()
-                .header("Cache-Control", "no-cache, must-revalidate")
-                .header("ETag", generateETag(response))
-                .body(response);
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
     }
 
+    @RateLimitPolicy("driver-arrival")
+    @RequestPriority(RequestPriority.Level.HIGH)
     @PostMapping("/arrival")
-    public ResponseEntity<DriverArrivalResponseDTO> driverArrival(@Valid @RequestBody DriverArrivalRequestDTO driverArrivalRequestDTO, HttpServletRequest request) {
-        return ResponseEntity.ok(driverService.submitArrival(request,driverArrivalRequestDTO));
+    public ResponseEntity<DriverArrivalResponseDTO> driverArrival(@Valid @RequestBody DriverArrivalRequestDTO driverArrivalRequestDTO, @AuthenticationPrincipal DriverPrincipal principal) {
+        return ResponseEntity.ok(driverService.submitArrival(principal, driverArrivalRequestDTO));
     }
 
-    // Add this method to generate ETag
-    private String generateETag(DriverDashboardDataDTO response) {
-        // Create a hash based on the response content
-        String content = response.getLoadId() +
-                response.getCurrentDestinationArea() +
-                response.getCurrentDestinationLocation() +
-                response.getTrailerNumber() +
-                response.getDriverArrived();
-
-        // Simple hash generation (you can use more sophisticated methods)
-        return "\"" + Integer.toHexString(content.hashCode()) + "\"";
+    // Weak comparison, If-None-Match may list several tags
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = eTag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
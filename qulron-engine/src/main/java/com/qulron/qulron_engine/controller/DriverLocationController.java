@@ -1,11 +1,15 @@
 package com.qulron.qulron_engine.controller;
 
+import com.qulron.qulron_engine.config.RequestPriority;
+import com.qulron.qulron_engine.dto.DriverLocationBatchDTO;
 import com.qulron.qulron_engine.dto.DriverLocationDTO;
+import com.qulron.qulron_engine.dto.DriverPrincipal;
 import com.qulron.qulron_engine.service.DriverLocationService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -25,19 +29,21 @@ public class DriverLocationController {
     /**
      * Update driver location - requires valid token and location data
      */
+    @RequestPriority(RequestPriority.Level.LOW)
     @PostMapping("/update")
     public ResponseEntity<DriverLocationDTO> updateDriverLocation(
             @Valid @RequestBody DriverLocationDTO locationDTO,
+            @AuthenticationPrincipal DriverPrincipal principal,
             HttpServletRequest request) {
 
         log.info("Location update request received from IP: {}", getClientIpAddress(request));
 
         try {
-            DriverLocationDTO response = driverLocationService.updateDriverLocation(request, locationDTO);
+            DriverLocationDTO response = driverLocationService.updateDriverLocation(principal, locationDTO);
 
             // Log successful update
             if (response.getStatusCode() == 200) {
-                log.info("Location updated successfully - Load: {} Coordinates: ({}, {})",
+                log.info("Location accepted - Load: {} Coordinates: ({}, {})",
                         response.getLoadId(),
                         response.getLatitude(), response.getLongitude());
             } else {
@@ -60,6 +66,43 @@ public class DriverLocationController {
         }
     }
 
+    /**
+     * Update driver location with a batch of fixes - requires valid token and location data
+     */
+    @RequestPriority(RequestPriority.Level.LOW)
+    @PostMapping("/update/batch")
+    public ResponseEntity<DriverLocationBatchDTO> updateDriverLocationBatch(
+            @Valid @RequestBody DriverLocationBatchDTO batchDTO,
+            @AuthenticationPrincipal DriverPrincipal principal,
+            HttpServletRequest request) {
+
+        log.info("Location batch request received from IP: {} with {} fixes", getClientIpAddress(request),
+                batchDTO.getLocations() != null ? batchDTO.getLocations().size() : 0);
+
+        try {
+            DriverLocationBatchDTO response = driverLocationService.updateDriverLocationBatch(principal, batchDTO);
+
+            if (response.getStatusCode() == 200) {
+                log.info("Location batch accepted - Load: {} Accepted: {} Rejected: {}",
+                        response.getLoadId(), response.getAcceptedCount(), response.getRejectedCount());
+            } else {
+                log.warn("Location batch failed - Status: {} Message: {}",
+                        response.getStatusCode(), response.getMessage());
+            }
+
+            return ResponseEntity.status(response.getStatusCode()).body(response);
+
+        } catch (Exception e) {
+            log.error("Error updating driver location batch - Error: {}", e.getMessage(), e);
+
+            DriverLocationBatchDTO errorResponse = new DriverLocationBatchDTO();
+            errorResponse.setStatusCode(500);
+            errorResponse.setMessage("Internal server error occurred while updating locations");
+
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
     /**
      * Health check endpoint for location service
      */
@@ -1,5 +1,8 @@
 package com.qulron.qulron_engine.controller;
 
+import com.qulron.qulron_engine.config.RateLimitPolicy;
+import com.qulron.qulron_engine.config.RequestPriority;
+import com.qulron.qulron_engine.dto.DriverPrincipal;
 import com.qulron.qulron_engine.dto.TrailerDTO;
 import com.qulron.qulron_engine.service.TrailerService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,6 +11,7 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -23,11 +27,12 @@ public class TrailerController {
     }
 
     @GetMapping("/check")
-    public ResponseEntity<TrailerDTO> checkForTrailer(HttpServletRequest request) {
+    public ResponseEntity<TrailerDTO> checkForTrailer(@AuthenticationPrincipal DriverPrincipal principal,
+                                                      HttpServletRequest request) {
         log.info("Trailer check request received from IP: {}", getClientIpAddress(request));
 
         try {
-            TrailerDTO response = trailerService.trailerCheck(request);
+            TrailerDTO response = trailerService.trailerCheck(principal);
 
             log.info("Trailer check completed - Status: {} Message: {}",
                     response.getStatusCode(), response.getMessage());
@@ -45,8 +50,11 @@ public class TrailerController {
         }
     }
 
+    @RateLimitPolicy("trailer-new")
+    @RequestPriority(RequestPriority.Level.HIGH)
     @PostMapping("/new")
     public ResponseEntity<TrailerDTO> createOrderTrailer(
+            @AuthenticationPrincipal DriverPrincipal principal,
             HttpServletRequest request,
             @RequestBody @NotBlank(message = "Trailer number is required") @Size(min = 1, max = 30, message = "Trailer number must be between 1 and 30 characters") @Pattern(regexp = "^[A-Z0-9-]+$", message = "Trailer number can only contain uppercase letters, numbers, and hyphens") String trailerNumber) {
 
@@ -54,7 +62,7 @@ public class TrailerController {
                 trailerNumber, getClientIpAddress(request));
 
         try {
-            TrailerDTO response = trailerService.createLoadTrailer(request, trailerNumber);
+            TrailerDTO response = trailerService.createLoadTrailer(principal, trailerNumber);
 
             if (response.getStatusCode() == 200) {
                 log.info("Trailer created successfully - Trailer: {} Load: {}",
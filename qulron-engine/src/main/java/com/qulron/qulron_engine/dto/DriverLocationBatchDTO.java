@@ -0,0 +1,31 @@
+package com.qulron.qulron_engine.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DriverLocationBatchDTO {
+    private int statusCode;
+    private String error;
+    private String message;
+    private String messageCode;
+
+    private String loadId;
+
+    // Fixes collected on the device since the last successful upload; not validated one by one,
+    // the service skips invalid fixes and counts them as rejected instead of failing the batch
+    @NotEmpty(message = "At least one location is required")
+    private List<DriverLocationDTO> locations;
+
+    // Response counters
+    private Integer acceptedCount;
+    private Integer rejectedCount;
+}
@@ -0,0 +1,25 @@
+package com.qulron.qulron_engine.dto;
+
+import java.security.Principal;
+
+/**
+ * Authenticated driver, built once per request by JWTAuthFilter after the token, device and
+ * location checks have passed. lmId and loadId are the driver's active load (CREATED, ACTIVATED
+ * or STARTED) at the time of the request, null when there is none.
+ */
+public record DriverPrincipal(String phoneNumber,
+                              String role,
+                              String deviceFingerprint,
+                              Long loginTime,
+                              Long lmId,
+                              String loadId) implements Principal {
+
+    @Override
+    public String getName() {
+        return phoneNumber;
+    }
+
+    public boolean hasActiveLoad() {
+        return lmId != null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.qulron.qulron_engine.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Internal, allocation-light form of a driver location fix used between parsing and persistence.
+ * Optional decimals are NaN and optional integers are ABSENT when the device did not send them;
+ * moving stays null then, Boolean only ever holds the shared TRUE/FALSE instances.
+ * Timestamps are LocalDateTime values encoded as epoch millis at UTC, so they round-trip unchanged.
+ */
+public record LocationFix(double latitude,
+                          double longitude,
+                          double accuracy,
+                          double speed,
+                          double heading,
+                          double altitude,
+                          Boolean moving,
+                          int batteryLevel,
+                          int estimatedArrival,
+                          String destinationWarehouse,
+                          long locationTimestamp) {
+
+    public static final int ABSENT = Integer.MIN_VALUE;
+
+    /**
+     * Convert request data, latitude and longitude must be present
+     */
+    public static LocationFix from(DriverLocationDTO dto, LocalDateTime locationTimestamp) {
+        return new LocationFix(
+                dto.getLatitude().doubleValue(),
+                dto.getLongitude().doubleValue(),
+                toDouble(dto.getAccuracy()),
+                toDouble(dto.getSpeed()),
+                toDouble(dto.getHeading()),
+                toDouble(dto.getAltitude()),
+                dto.getIsMoving(),
+                dto.getBatteryLevel() != null ? dto.getBatteryLevel() : ABSENT,
+                dto.getEstimatedArrival() != null ? dto.getEstimatedArrival() : ABSENT,
+                dto.getDestinationWarehouse(),
+                toEpochMillis(locationTimestamp));
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Back to the DECIMAL columns, only used when the fix is written to the database
+     */
+    public static BigDecimal toDecimal(double value) {
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value);
+    }
+
+    public static Integer toInteger(int value) {
+        return value == ABSENT ? null : value;
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+}
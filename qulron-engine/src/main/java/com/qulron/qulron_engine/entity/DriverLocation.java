@@ -12,8 +12,11 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 public class DriverLocation {
+    // Sequence (not IDENTITY) so Hibernate can group inserts into JDBC batches.
+    // allocationSize must match the INCREMENT BY of t_driver_location_dl_id_seq.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "driver_location_seq")
+    @SequenceGenerator(name = "driver_location_seq", sequenceName = "t_driver_location_dl_id_seq", allocationSize = 50)
     @Column(name = "dl_id")
     private Long id;
 
@@ -51,7 +54,8 @@ public class DriverLocation {
     @Column(name = "destination_warehouse", length = 30)
     private String destinationWarehouse;
 
-    @Column(name = "location_timestamp", nullable = false)
+    // Partition key of t_driver_location, an update would move the row to another partition
+    @Column(name = "location_timestamp", nullable = false, updatable = false)
     private LocalDateTime locationTimestamp;
 
     @Column(name = "record_create_id", nullable = false, length = 30)
@@ -0,0 +1,41 @@
+package com.qulron.qulron_engine.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "t_driver_track")
+@Getter
+@Setter
+public class DriverTrack {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "dt_id")
+    private Long id;
+
+    @Column(name = "lm_id", nullable = false, unique = true)
+    private Long lmId;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(name = "start_timestamp")
+    private LocalDateTime startTimestamp;
+
+    @Column(name = "end_timestamp")
+    private LocalDateTime endTimestamp;
+
+    // GZIP compressed, delta encoded fixes, see TrackCodec
+    @Column(name = "track", nullable = false, columnDefinition = "BYTEA")
+    private byte[] track;
+
+    @Column(name = "record_create_id", nullable = false, length = 30)
+    private String recordCreateId;
+
+    @Column(name = "record_create_date", nullable = false)
+    private LocalDateTime recordCreateDate;
+
+}
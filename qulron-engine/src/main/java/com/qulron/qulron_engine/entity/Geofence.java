@@ -0,0 +1,49 @@
+package com.qulron.qulron_engine.entity;
+
+import com.qulron.qulron_engine.enums.ZoneType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "t_geofence")
+@Getter
+@Setter
+public class Geofence {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "gf_id")
+    private Long id;
+
+    @Column(name = "zone_code", nullable = false, length = 30)
+    private String zoneCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "zone_type", nullable = false, length = 20)
+    private ZoneType zoneType;
+
+    @Column(name = "task_destination_area", length = 5)
+    private String taskDestinationArea;
+
+    // Vertices as "lat lng" pairs separated by commas
+    @Column(name = "polygon", nullable = false, columnDefinition = "TEXT")
+    private String polygon;
+
+    @Column(name = "active", nullable = false)
+    private Boolean active;
+
+    @Column(name = "record_create_id", nullable = false, length = 30)
+    private String recordCreateId;
+
+    @Column(name = "record_create_date", nullable = false)
+    private LocalDateTime recordCreateDate;
+
+    @Column(name = "record_update_id", length = 30)
+    private String recordUpdateId;
+
+    @Column(name = "record_update_date")
+    private LocalDateTime recordUpdateDate;
+
+}
@@ -0,0 +1,8 @@
+package com.qulron.qulron_engine.enums;
+
+public enum ZoneType {
+    FACILITY,
+    GATE,
+    DOCK,
+    YARD
+}
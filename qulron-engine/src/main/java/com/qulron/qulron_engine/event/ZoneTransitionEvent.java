@@ -0,0 +1,20 @@
+package com.qulron.qulron_engine.event;
+
+import com.qulron.qulron_engine.enums.ZoneType;
+
+/**
+ * A load entered or left a geofence zone, published by the location ingest path
+ */
+public record ZoneTransitionEvent(Long lmId,
+                                  String loadId,
+                                  String zoneCode,
+                                  ZoneType zoneType,
+                                  String taskDestinationArea,
+                                  Transition transition,
+                                  long locationTimestamp) {
+
+    public enum Transition {
+        ENTER,
+        EXIT
+    }
+}
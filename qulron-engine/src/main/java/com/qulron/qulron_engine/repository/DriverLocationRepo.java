@@ -2,8 +2,34 @@ package com.qulron.qulron_engine.repository;
 
 import com.qulron.qulron_engine.entity.DriverLocation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface DriverLocationRepo extends JpaRepository<DriverLocation, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Coordinates only, for track compaction
+     */
+    interface TrackPoint {
+        BigDecimal getLatitude();
+
+        BigDecimal getLongitude();
+
+        LocalDateTime getLocationTimestamp();
+    }
+
+    @Query("SELECT dl.latitude AS latitude, dl.longitude AS longitude, dl.locationTimestamp AS locationTimestamp " +
+            "FROM DriverLocation dl WHERE dl.loadMaster.id = :lmId ORDER BY dl.locationTimestamp")
+    List<TrackPoint> findTrackPoints(@Param("lmId") Long lmId);
+
+    @Modifying
+    @Query("DELETE FROM DriverLocation dl WHERE dl.loadMaster.id = :lmId")
+    int deleteByLmId(@Param("lmId") Long lmId);
+}
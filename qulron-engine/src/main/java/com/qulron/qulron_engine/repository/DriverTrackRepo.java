@@ -0,0 +1,24 @@
+package com.qulron.qulron_engine.repository;
+
+import com.qulron.qulron_engine.entity.DriverTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DriverTrackRepo extends JpaRepository<DriverTrack, Long> {
+
+    /**
+     * FINISHED loads, unchanged since the cutoff, that have no compacted track yet
+     */
+    @Query(value = "SELECT lm.lm_id FROM t_load_master lm " +
+            "WHERE lm.status = '90' " +
+            "AND COALESCE(lm.record_update_date, lm.record_create_date) < :cutoff " +
+            "AND NOT EXISTS (SELECT 1 FROM t_driver_track dt WHERE dt.lm_id = lm.lm_id) " +
+            "ORDER BY lm.lm_id LIMIT :limit", nativeQuery = true)
+    List<Long> findLoadsToCompact(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
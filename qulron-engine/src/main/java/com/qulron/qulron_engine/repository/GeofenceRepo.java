@@ -0,0 +1,12 @@
+package com.qulron.qulron_engine.repository;
+
+import com.qulron.qulron_engine.entity.Geofence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GeofenceRepo extends JpaRepository<Geofence, Long> {
+    List<Geofence> findByActiveTrue();
+}
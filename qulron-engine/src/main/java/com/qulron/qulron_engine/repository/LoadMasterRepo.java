@@ -2,13 +2,118 @@ package com.qulron.qulron_engine.repository;
 
 import com.qulron.qulron_engine.entity.LoadMaster;
 import com.qulron.qulron_engine.enums.Status;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface LoadMasterRepo extends JpaRepository<LoadMaster, Long> {
     Optional<LoadMaster> findByPhoneNumberAndLoadStatusIn(String phoneNumber, List<Status> statuses);
+
+    /**
+     * Load locked until the transaction ends, status transitions read it this way so two
+     * concurrent arrivals cannot both see CREATED
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT lm FROM LoadMaster lm WHERE lm.id = :id")
+    Optional<LoadMaster> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Id, load id and status only, resolved for every authenticated driver request
+     */
+    interface LoadRef {
+        Long getId();
+
+        String getLoadId();
+
+        Status getLoadStatus();
+    }
+
+    Optional<LoadRef> findLoadRefByPhoneNumberAndLoadStatusIn(String phoneNumber, List<Status> statuses);
+
+    /**
+     * Everything the driver dashboard shows, read in one round trip
+     */
+    interface DashboardView {
+        Long getLmId();
+
+        String getLoadId();
+
+        String getLoadStatus();
+
+        String getPhoneNumber();
+
+        String getDriverName();
+
+        String getBrokerName();
+
+        BigDecimal getPotentialWeight();
+
+        // Null when the load has no details
+        String getOrderNumbers();
+
+        // Of the first order, null when it was not found
+        String getFirstOrderNumber();
+
+        String getWarehouse();
+
+        String getWarehouseAddress();
+
+        String getCustomerName();
+
+        String getDestCity();
+
+        String getDestState();
+
+        String getDestCountryCode();
+
+        Boolean getHasTrailer();
+
+        String getTrailerNumber();
+
+        // Latest open task, null for FINISHED loads
+        String getTaskDestinationArea();
+
+        String getTaskDestinationLocation();
+    }
+
+    /**
+     * Dashboard of the phone's current load: the newest active one, else the newest FINISHED one
+     */
+    @Query(value = "SELECT lm.lm_id AS lmId, lm.load_id AS loadId, lm.status AS loadStatus, " +
+            "lm.phone_number AS phoneNumber, lm.driver_name AS driverName, lm.broker_name AS brokerName, " +
+            "lm.potential_weight AS potentialWeight, ld.order_numbers AS orderNumbers, " +
+            "ld.first_order_number AS firstOrderNumber, o.warehouse AS warehouse, " +
+            "o.warehouse_address AS warehouseAddress, o.customer_name AS customerName, o.dest_city AS destCity, " +
+            "o.dest_state AS destState, o.dest_country_code AS destCountryCode, " +
+            "tr.trailer_id IS NOT NULL AS hasTrailer, tr.trailer_number AS trailerNumber, " +
+            "tk.destination_area AS taskDestinationArea, tk.destination_location AS taskDestinationLocation " +
+            "FROM t_load_master lm " +
+            "LEFT JOIN LATERAL (SELECT string_agg(d.order_number, ', ' ORDER BY d.ld_id) AS order_numbers, " +
+            "(array_agg(d.order_number ORDER BY d.ld_id))[1] AS first_order_number " +
+            "FROM t_load_detail d WHERE d.load_id = lm.load_id) ld ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT o.warehouse, o.warehouse_address, o.customer_name, o.dest_city, o.dest_state, " +
+            "o.dest_country_code FROM t_order o WHERE o.order_number = ld.first_order_number " +
+            "ORDER BY o.order_id DESC LIMIT 1) o ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT t.trailer_id, t.trailer_number FROM t_trailer t WHERE t.lm_id = lm.lm_id " +
+            "ORDER BY t.trailer_id DESC LIMIT 1) tr ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT t.destination_area, t.destination_location FROM t_task t " +
+            "WHERE t.lm_id = lm.lm_id AND t.status IN ('00', '20') AND lm.status <> '90' " +
+            "ORDER BY t.task_id DESC LIMIT 1) tk ON TRUE " +
+            "WHERE lm.phone_number = :phoneNumber AND lm.status IN ('00', '10', '20', '90') " +
+            "ORDER BY lm.status = '90', lm.lm_id DESC LIMIT 1", nativeQuery = true)
+    Optional<DashboardView> findDashboardByPhoneNumber(@Param("phoneNumber") String phoneNumber);
+
+    @Modifying
+    @Query("UPDATE LoadMaster lm SET lm.lastDriverLatitude = :latitude, lm.lastDriverLongitude = :longitude WHERE lm.id = :id")
+    int updateLastDriverPosition(@Param("id") Long id, @Param("latitude") BigDecimal latitude,
+                                 @Param("longitude") BigDecimal longitude);
 }
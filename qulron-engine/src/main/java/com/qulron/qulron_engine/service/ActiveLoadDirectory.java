@@ -0,0 +1,111 @@
+package com.qulron.qulron_engine.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qulron.qulron_engine.entity.LoadMaster;
+import com.qulron.qulron_engine.enums.Status;
+import com.qulron.qulron_engine.repository.LoadMasterRepo;
+import com.qulron.qulron_engine.utility.PhoneNumberUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active load (CREATED, ACTIVATED or STARTED) of each driver phone number, cached in memory.
+ * Phones without an active load are cached too. Entries are dropped when the engine changes a
+ * load and by LoadChangeFeed for changes made anywhere else; ttl bounds how long an entry can
+ * be wrong if the feed ever misses one.
+ */
+@Slf4j
+@Component
+public class ActiveLoadDirectory {
+
+    public static final List<Status> ACTIVE_STATUSES = List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED);
+
+    // Cached for phones without an active load
+    private static final ActiveLoad NONE = new ActiveLoad(null, null, null);
+
+    private final LoadMasterRepo loadMasterRepo;
+    private final Cache<@NonNull Long, @NonNull ActiveLoad> activeLoads;
+
+    public ActiveLoadDirectory(LoadMasterRepo loadMasterRepo, MeterRegistry meterRegistry,
+                               @Value("${app.load-directory.ttl-minutes:10}") long ttlMinutes,
+                               @Value("${app.load-directory.max-size:50000}") long maxSize) {
+        this.loadMasterRepo = loadMasterRepo;
+        this.activeLoads = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, activeLoads, "active.load.directory");
+    }
+
+    public record ActiveLoad(Long lmId, String loadId, Status status) {
+    }
+
+    /**
+     * The active load of a phone number, from the database on a miss
+     */
+    public Optional<ActiveLoad> find(String phoneNumber) {
+        long phoneKey = PhoneNumberUtils.toKey(phoneNumber);
+        try {
+            ActiveLoad activeLoad = activeLoads.get(phoneKey, () -> loadMasterRepo
+                    .findLoadRefByPhoneNumberAndLoadStatusIn(phoneNumber, ACTIVE_STATUSES)
+                    .map(ref -> new ActiveLoad(ref.getId(), ref.getLoadId(), ref.getLoadStatus()))
+                    .orElse(NONE));
+            return activeLoad == NONE ? Optional.empty() : Optional.of(activeLoad);
+        } catch (ExecutionException e) {
+            log.error("Failed to resolve active load for phone: {}", phoneNumber, e.getCause());
+            throw new IllegalStateException("Failed to resolve active load", e.getCause());
+        }
+    }
+
+    /**
+     * Record a load saved in the current transaction, applied once it commits
+     */
+    public void register(LoadMaster loadMaster) {
+        // A driver can only log in with a valid number, nothing to cache otherwise
+        if (!PhoneNumberUtils.isValid(loadMaster.getPhoneNumber())) {
+            return;
+        }
+        long phoneKey = PhoneNumberUtils.toKey(loadMaster.getPhoneNumber());
+        ActiveLoad activeLoad = ACTIVE_STATUSES.contains(loadMaster.getLoadStatus())
+                ? new ActiveLoad(loadMaster.getId(), loadMaster.getLoadId(), loadMaster.getLoadStatus())
+                : NONE;
+        afterCommit(() -> activeLoads.put(phoneKey, activeLoad));
+    }
+
+    /**
+     * Drop the entry of a phone number, after the current transaction commits if there is one
+     */
+    public void invalidate(String phoneNumber) {
+        if (!PhoneNumberUtils.isValid(phoneNumber)) {
+            return;
+        }
+        long phoneKey = PhoneNumberUtils.toKey(phoneNumber);
+        afterCommit(() -> activeLoads.invalidate(phoneKey));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.dto.DriverArrivalResponseDTO;
+import com.qulron.qulron_engine.enums.ZoneType;
+import com.qulron.qulron_engine.event.ZoneTransitionEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Confirms arrival automatically when a load's location enters the facility geofence
+ */
+@Slf4j
+@Component
+public class ArrivalEventListener {
+
+    private final DriverService driverService;
+    private final boolean AUTO_ARRIVAL_ENABLED;
+
+    public ArrivalEventListener(DriverService driverService,
+                                @Value("${app.arrival.auto-confirm.enabled:true}") boolean autoArrivalEnabled) {
+        this.driverService = driverService;
+        AUTO_ARRIVAL_ENABLED = autoArrivalEnabled;
+    }
+
+    @Async
+    @EventListener
+    public void onZoneEntered(ZoneTransitionEvent event) {
+        if (!AUTO_ARRIVAL_ENABLED || event.transition() != ZoneTransitionEvent.Transition.ENTER
+                || event.zoneType() != ZoneType.FACILITY) {
+            return;
+        }
+
+        try {
+            DriverArrivalResponseDTO response = driverService.confirmArrival(event.lmId());
+            if (response.getStatusCode() == 200) {
+                log.info("Arrival confirmed automatically for load: {} at zone: {}", event.loadId(), event.zoneCode());
+            } else {
+                log.info("Automatic arrival skipped for load: {} - {}", event.loadId(), response.getMessage());
+            }
+        } catch (Exception e) {
+            log.error("Automatic arrival failed for load: {}", event.loadId(), e);
+        }
+    }
+}
@@ -29,13 +29,20 @@ public class BrokerService {
 
     private final OrderRepo orderRepo;
 
-    public BrokerService(OpenLoadRepo openLoadRepo, OpenLoadDetailRepo openLoadDetailRepo, OpenOrderRepo openOrderRepo, LoadMasterRepo loadMasterRepo, LoadDetailRepo loadDetailRepo, OrderRepo orderRepo) {
+    private final ActiveLoadDirectory activeLoadDirectory;
+
+    private final LoadVersionRegistry loadVersionRegistry;
+
+    public BrokerService(OpenLoadRepo openLoadRepo, OpenLoadDetailRepo openLoadDetailRepo, OpenOrderRepo openOrderRepo, LoadMasterRepo loadMasterRepo, LoadDetailRepo loadDetailRepo, OrderRepo orderRepo,
+                         ActiveLoadDirectory activeLoadDirectory, LoadVersionRegistry loadVersionRegistry) {
         this.openLoadRepo = openLoadRepo;
         this.openLoadDetailRepo = openLoadDetailRepo;
         this.openOrderRepo = openOrderRepo;
         this.loadMasterRepo = loadMasterRepo;
         this.loadDetailRepo = loadDetailRepo;
         this.orderRepo = orderRepo;
+        this.activeLoadDirectory = activeLoadDirectory;
+        this.loadVersionRegistry = loadVersionRegistry;
     }
 
     // Submit An Order
@@ -147,6 +154,9 @@ public class BrokerService {
             loadMaster.setRecordCreateDate(LocalDateTime.now());
 
             LoadMaster loadResult = loadMasterRepo.save(loadMaster);
+            // The driver's first requests find the load without a query
+            activeLoadDirectory.register(loadResult);
+            loadVersionRegistry.bump(loadResult.getPhoneNumber());
 
             if (loadResult.getId() > 0) {
                 StringBuilder orderNumbers = new StringBuilder();
@@ -0,0 +1,161 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.utility.PhoneNumberUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event streams of connected drivers, per phone number.
+ * A "load-change" event tells the driver app to fetch its dashboard again; the dashboard
+ * itself is not pushed, the fetch is answered with 304 when nothing the driver sees changed.
+ * Events are written by one thread so a slow client never holds up LoadChangeListener;
+ * a heartbeat comment every heartbeat-interval-ms finds and drops dead connections.
+ */
+@Slf4j
+@Component
+public class DriverEventStream {
+
+    private final long TIMEOUT;
+    private final long HEARTBEAT_INTERVAL;
+    private final int MAX_CONNECTIONS;
+
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private ScheduledExecutorService sender;
+
+    private final Counter eventCounter;
+
+    public DriverEventStream(MeterRegistry meterRegistry,
+                             @Value("${app.driver-stream.timeout-ms:1800000}") long timeout,
+                             @Value("${app.driver-stream.heartbeat-interval-ms:25000}") long heartbeatInterval,
+                             @Value("${app.driver-stream.max-connections:5000}") int maxConnections) {
+        TIMEOUT = timeout;
+        HEARTBEAT_INTERVAL = heartbeatInterval;
+        MAX_CONNECTIONS = maxConnections;
+
+        Gauge.builder("driver.stream.connections", connections, AtomicInteger::get)
+                .description("Open driver event streams")
+                .register(meterRegistry);
+        this.eventCounter = Counter.builder("driver.stream.events")
+                .description("Events written to driver event streams")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Driver-Event-Stream");
+            t.setDaemon(true);
+            return t;
+        });
+
+        sender.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sender != null && !sender.isShutdown()) {
+            sender.shutdown();
+            try {
+                if (!sender.awaitTermination(5, TimeUnit.SECONDS)) {
+                    sender.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                sender.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Clients reconnect to another instance
+        emitters.values().forEach(set -> set.forEach(SseEmitter::complete));
+        emitters.clear();
+    }
+
+    /**
+     * Open a stream for a phone number, null when max-connections streams are already open
+     */
+    public SseEmitter subscribe(String phoneNumber) {
+        if (connections.incrementAndGet() > MAX_CONNECTIONS) {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        long phoneKey = PhoneNumberUtils.toKey(phoneNumber);
+        SseEmitter emitter = new SseEmitter(TIMEOUT);
+        emitters.computeIfAbsent(phoneKey, key -> new CopyOnWriteArraySet<>()).add(emitter);
+
+        Runnable remove = () -> remove(phoneKey, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        // Sends the headers at once, the app then knows pushes work and stops polling
+        sender.execute(() -> send(phoneKey, emitter, SseEmitter.event().name("ready").data("")));
+        return emitter;
+    }
+
+    /**
+     * Tell the drivers of a phone number that their load changed
+     */
+    public void publish(String phoneNumber, long lmId) {
+        if (!PhoneNumberUtils.isValid(phoneNumber)) {
+            return;
+        }
+        long phoneKey = PhoneNumberUtils.toKey(phoneNumber);
+        if (!emitters.containsKey(phoneKey)) {
+            return;
+        }
+        sender.execute(() -> emitters.getOrDefault(phoneKey, Set.of()).forEach(emitter ->
+                send(phoneKey, emitter, SseEmitter.event().name("load-change").data(lmId))));
+    }
+
+    /**
+     * Tell every connected driver to fetch again, for changes that may have been missed
+     */
+    public void publishAll() {
+        sender.execute(() -> emitters.forEach((phoneKey, set) -> set.forEach(emitter ->
+                send(phoneKey, emitter, SseEmitter.event().name("load-change").data("")))));
+    }
+
+    private void heartbeat() {
+        emitters.forEach((phoneKey, set) -> set.forEach(emitter ->
+                send(phoneKey, emitter, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void send(long phoneKey, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            eventCounter.increment();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away, the container completes the emitter
+            remove(phoneKey, emitter);
+            log.debug("Dropped driver event stream: {}", e.getMessage());
+        }
+    }
+
+    private void remove(long phoneKey, SseEmitter emitter) {
+        emitters.computeIfPresent(phoneKey, (key, set) -> {
+            if (set.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -1,86 +1,90 @@
 package com.qulron.qulron_engine.service;
 
+import com.qulron.qulron_engine.dto.DriverLocationBatchDTO;
 import com.qulron.qulron_engine.dto.DriverLocationDTO;
-import com.qulron.qulron_engine.entity.DriverLocation;
-import com.qulron.qulron_engine.entity.LoadMaster;
-import com.qulron.qulron_engine.enums.Status;
-import com.qulron.qulron_engine.repository.DriverLocationRepo;
-import com.qulron.qulron_engine.repository.LoadMasterRepo;
-import com.qulron.qulron_engine.utility.DeviceFingerprintUtils;
-import com.qulron.qulron_engine.utility.JWTUtils;
-import jakarta.servlet.http.HttpServletRequest;
+import com.qulron.qulron_engine.dto.DriverPrincipal;
+import com.qulron.qulron_engine.dto.LocationFix;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Slf4j
 @Service
 public class DriverLocationService {
 
     // Constants for validation
-    private static final BigDecimal MAX_LATITUDE = new BigDecimal("90.0");
-    private static final BigDecimal MIN_LATITUDE = new BigDecimal("-90.0");
-    private static final BigDecimal MAX_LONGITUDE = new BigDecimal("180.0");
-    private static final BigDecimal MIN_LONGITUDE = new BigDecimal("-180.0");
+    private static final double MAX_LATITUDE = 90.0;
+    private static final double MIN_LATITUDE = -90.0;
+    private static final double MAX_LONGITUDE = 180.0;
+    private static final double MIN_LONGITUDE = -180.0;
     private static final int MAX_BATTERY_LEVEL = 100;
     private static final int MIN_BATTERY_LEVEL = 0;
-    @Value("${app.system-user}")
-    private String SYSTEM_USER;
-
-    private final DriverLocationRepo driverLocationRepo;
-    private final LoadMasterRepo loadMasterRepo;
-    private final JWTUtils jwtUtils;
-    private final DeviceFingerprintUtils deviceFingerprintUtils;
-
-    public DriverLocationService(DriverLocationRepo driverLocationRepo, LoadMasterRepo loadMasterRepo, JWTUtils jwtUtils, DeviceFingerprintUtils deviceFingerprintUtils) {
-        this.driverLocationRepo = driverLocationRepo;
-        this.loadMasterRepo = loadMasterRepo;
-        this.jwtUtils = jwtUtils;
-        this.deviceFingerprintUtils = deviceFingerprintUtils;
+    private static final double MAX_HEADING = 360.0;
+    private static final int MAX_DESTINATION_WAREHOUSE_LENGTH = 30;
+    @Value("${app.location.batch.max-size:100}")
+    private int MAX_BATCH_SIZE;
+    @Value("${app.location.batch.max-clock-skew-minutes:10}")
+    private long MAX_CLOCK_SKEW_MINUTES;
+    @Value("${app.location.batch.max-age-hours:48}")
+    private long MAX_AGE_HOURS;
+
+    private final DriverLocationWriteBuffer locationWriteBuffer;
+    private final LoadPositionRegistry loadPositionRegistry;
+    private final LocationDownsampler locationDownsampler;
+    private final GeofenceService geofenceService;
+    private final ZoneTransitionTracker zoneTransitionTracker;
+
+    public DriverLocationService(DriverLocationWriteBuffer locationWriteBuffer, LoadPositionRegistry loadPositionRegistry, LocationDownsampler locationDownsampler, GeofenceService geofenceService, ZoneTransitionTracker zoneTransitionTracker) {
+        this.locationWriteBuffer = locationWriteBuffer;
+        this.loadPositionRegistry = loadPositionRegistry;
+        this.locationDownsampler = locationDownsampler;
+        this.geofenceService = geofenceService;
+        this.zoneTransitionTracker = zoneTransitionTracker;
     }
 
-    public DriverLocationDTO updateDriverLocation(HttpServletRequest request, @Valid DriverLocationDTO locationDTO) {
+    public DriverLocationDTO updateDriverLocation(DriverPrincipal principal, @Valid DriverLocationDTO locationDTO) {
         DriverLocationDTO response = new DriverLocationDTO();
 
         try {
-            // Step 1: Validate request and extract token
-            String phoneNumber = validateAndExtractPhoneNumber(request, response);
-            if (phoneNumber == null) {
+            // Step 1: Driver authenticated by JWTAuthFilter
+            if (!isAuthenticated(principal, response)) {
                 return response; // Error already set
             }
 
-            // Step 2: Validate location data
-            if (!validateLocationData(locationDTO, response)) {
-                return response;
+            // Step 2: Validate location data, the server receive time is used as location timestamp
+            LocalDateTime now = LocalDateTime.now();
+            LocationFix fix = parseLocationFix(locationDTO, now, response);
+            if (fix == null) {
+                return response; // Error already set
             }
 
-            // Step 3: Get active load for this phone number
-            LoadMaster foundLoad = getActiveLoadForPhoneNumber(phoneNumber, response);
-            if (foundLoad == null) {
+            // Step 3: Active load resolved with the principal
+            if (!hasActiveLoad(principal, response)) {
                 return response; // Error already set
             }
 
-            // Step 4: Create and save location record
-            DriverLocation savedLocation = createAndSaveLocation(foundLoad, locationDTO);
-            if (savedLocation == null) {
-                response.setStatusCode(500);
-                response.setMessage("Failed to save location data");
+            // Step 4: Hand the location record to the write buffer, it is persisted asynchronously
+            // unless the driver is parked and a recent fix is already stored
+            boolean store = locationDownsampler.shouldStore(principal.lmId(), fix);
+            if (store && !locationWriteBuffer.offer(principal.lmId(), fix)) {
+                setBusyResponse(response);
+                log.warn("Location buffer full, rejecting update for load: {}", principal.loadId());
                 return response;
             }
+            locationDownsampler.commit(principal.lmId(), store ? List.of(fix) : List.of(), store ? 0 : 1);
+            loadPositionRegistry.update(principal.lmId(), fix);
+            zoneTransitionTracker.track(principal.lmId(), principal.loadId(), fix);
 
             // Step 5: Set successful response
-            setSuccessfulLocationResponse(response, savedLocation);
+            setSuccessfulLocationResponse(response, principal.loadId(), locationDTO, now);
+            response.setIsNearDestination(geofenceService.isInsideFacility(fix.latitude(), fix.longitude()));
 
-            log.info("Location updated successfully for load: {} by phone: {} with coordinates: ({}, {})",
-                    foundLoad.getLoadId(), phoneNumber,
-                    savedLocation.getLatitude(), savedLocation.getLongitude());
+            log.info("Location accepted for load: {} by phone: {} with coordinates: ({}, {})",
+                    principal.loadId(), principal.phoneNumber(), fix.latitude(), fix.longitude());
 
         } catch (Exception e) {
             log.error("Unexpected error updating driver location", e);
@@ -91,168 +95,241 @@ public class DriverLocationService {
         return response;
     }
 
-
-    // ========== PRIVATE HELPER METHODS ==========
-
     /**
-     * Validate request and extract phone number from token
+     * Update driver location with several fixes at once - token and active load are checked
+     * once for the whole batch and all fixes are handed to the write buffer together
      */
-    private String validateAndExtractPhoneNumber(HttpServletRequest request, DriverLocationDTO response) {
-        String token = extractToken(request);
-        if (token == null) {
-            response.setStatusCode(401);
-            response.setMessage("Authorization token is missing or invalid");
-            return null;
-        }
+    public DriverLocationBatchDTO updateDriverLocationBatch(DriverPrincipal principal, @Valid DriverLocationBatchDTO batchDTO) {
+        DriverLocationBatchDTO response = new DriverLocationBatchDTO();
+        DriverLocationDTO stepResponse = new DriverLocationDTO();
 
-        String phoneNumber = jwtUtils.extractPhoneNumber(token);
-        if (phoneNumber == null) {
-            response.setStatusCode(401);
-            response.setMessage("Invalid token: phone number not found");
-            return null;
+        try {
+            if (batchDTO.getLocations() == null || batchDTO.getLocations().isEmpty()) {
+                response.setStatusCode(400);
+                response.setMessage("At least one location is required");
+                return response;
+            }
+
+            if (batchDTO.getLocations().size() > MAX_BATCH_SIZE) {
+                response.setStatusCode(400);
+                response.setMessage("A batch cannot contain more than " + MAX_BATCH_SIZE + " locations");
+                return response;
+            }
+
+            // Step 1: Driver authenticated by JWTAuthFilter
+            if (!isAuthenticated(principal, stepResponse)) {
+                return copyStepError(stepResponse, response);
+            }
+
+            // Step 2: Active load resolved with the principal
+            if (!hasActiveLoad(principal, stepResponse)) {
+                return copyStepError(stepResponse, response);
+            }
+            Long lmId = principal.lmId();
+
+            // Step 3: Validate each fix, skipping invalid ones and duplicate timestamps
+            // (t_driver_location is unique on lm_id + location_timestamp). Timestamps come from the
+            // device clock; ones far from server time would land in the default partition
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime latest = now.plusMinutes(MAX_CLOCK_SKEW_MINUTES);
+            LocalDateTime earliest = now.minusHours(MAX_AGE_HOURS);
+            List<DriverLocationDTO> sortedFixes = new ArrayList<>(batchDTO.getLocations());
+            sortedFixes.sort(Comparator.comparing(DriverLocationDTO::getLocationTimestamp,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+
+            Set<LocalDateTime> seenTimestamps = new HashSet<>();
+            List<LocationFix> locations = new ArrayList<>(sortedFixes.size());
+            for (DriverLocationDTO fixDTO : sortedFixes) {
+                LocalDateTime timestamp = fixDTO.getLocationTimestamp();
+                if (timestamp == null || timestamp.isAfter(latest) || timestamp.isBefore(earliest)
+                        || seenTimestamps.contains(timestamp)) {
+                    continue;
+                }
+                // Only a valid fix takes the timestamp, an invalid one must not shadow a later valid one
+                LocationFix fix = parseLocationFix(fixDTO, timestamp, stepResponse);
+                if (fix != null) {
+                    seenTimestamps.add(timestamp);
+                    locations.add(fix);
+                }
+            }
+
+            int rejectedCount = batchDTO.getLocations().size() - locations.size();
+            if (locations.isEmpty()) {
+                response.setStatusCode(400);
+                response.setMessage("No valid locations in batch");
+                response.setAcceptedCount(0);
+                response.setRejectedCount(rejectedCount);
+                return response;
+            }
+
+            // Step 4: Hand the fixes that survive downsampling to the write buffer,
+            // last one becomes the load's last known position either way
+            List<LocationFix> storedLocations = locationDownsampler.selectStored(lmId, locations);
+            if (!locationWriteBuffer.offerAll(lmId, storedLocations)) {
+                response.setStatusCode(429);
+                response.setMessage("Location service is busy, please retry");
+                log.warn("Location buffer full, rejecting batch of {} for load: {}", locations.size(), principal.loadId());
+                return response;
+            }
+            locationDownsampler.commit(lmId, storedLocations, locations.size() - storedLocations.size());
+            loadPositionRegistry.update(lmId, locations.getLast());
+            for (LocationFix fix : locations) {
+                zoneTransitionTracker.track(lmId, principal.loadId(), fix);
+            }
+
+            response.setStatusCode(200);
+            response.setMessage("Locations accepted successfully");
+            response.setLoadId(principal.loadId());
+            response.setAcceptedCount(locations.size());
+            response.setRejectedCount(rejectedCount);
+
+            log.info("Location batch accepted for load: {} by phone: {} accepted: {} rejected: {}",
+                    principal.loadId(), principal.phoneNumber(), locations.size(), rejectedCount);
+
+        } catch (Exception e) {
+            log.error("Unexpected error updating driver location batch", e);
+            response.setStatusCode(500);
+            response.setMessage("Internal server error occurred");
         }
 
-        // Mobile-friendly token validation with device fingerprinting
-        String currentDeviceFingerprint = deviceFingerprintUtils.generateDeviceFingerprint(request);
-        String currentLocation = deviceFingerprintUtils.extractLocation(request);
+        return response;
+    }
 
-        if (!jwtUtils.isTokenValid(token, phoneNumber, currentDeviceFingerprint, currentLocation)) {
+
+    // ========== PRIVATE HELPER METHODS ==========
+
+    /**
+     * Check the request carries an authenticated driver
+     */
+    private boolean isAuthenticated(DriverPrincipal principal, DriverLocationDTO response) {
+        if (principal == null) {
             response.setStatusCode(401);
-            response.setMessage("Invalid or expired token");
-            log.warn("Invalid token for location service by phone: {} from device: {}",
-                    phoneNumber, currentDeviceFingerprint);
-            return null;
+            response.setMessage("Authorization token is missing or invalid");
+            return false;
         }
-
-        return phoneNumber;
+        return true;
     }
 
     /**
-     * Validate location data for production use
+     * Validate location data for production use, returns the parsed fix or null with the error set
      */
-    private boolean validateLocationData(DriverLocationDTO locationDTO, DriverLocationDTO response) {
+    private LocationFix parseLocationFix(DriverLocationDTO locationDTO, LocalDateTime locationTimestamp,
+                                         DriverLocationDTO response) {
         // Validate required fields
         if (locationDTO.getLatitude() == null || locationDTO.getLongitude() == null) {
             response.setStatusCode(400);
             response.setMessage("Latitude and longitude are required");
-            return false;
+            return null;
         }
 
+        LocationFix fix = LocationFix.from(locationDTO, locationTimestamp);
+
         // Validate coordinate ranges
-        if (locationDTO.getLatitude().compareTo(MAX_LATITUDE) > 0 ||
-                locationDTO.getLatitude().compareTo(MIN_LATITUDE) < 0) {
+        if (!(fix.latitude() >= MIN_LATITUDE && fix.latitude() <= MAX_LATITUDE)) {
             response.setStatusCode(400);
             response.setMessage("Latitude must be between -90 and 90 degrees");
-            return false;
+            return null;
         }
 
-        if (locationDTO.getLongitude().compareTo(MAX_LONGITUDE) > 0 ||
-                locationDTO.getLongitude().compareTo(MIN_LONGITUDE) < 0) {
+        if (!(fix.longitude() >= MIN_LONGITUDE && fix.longitude() <= MAX_LONGITUDE)) {
             response.setStatusCode(400);
             response.setMessage("Longitude must be between -180 and 180 degrees");
-            return false;
+            return null;
         }
 
         // Validate battery level if provided
-        if (locationDTO.getBatteryLevel() != null) {
-            if (locationDTO.getBatteryLevel() < MIN_BATTERY_LEVEL ||
-                    locationDTO.getBatteryLevel() > MAX_BATTERY_LEVEL) {
+        if (fix.batteryLevel() != LocationFix.ABSENT) {
+            if (fix.batteryLevel() < MIN_BATTERY_LEVEL ||
+                    fix.batteryLevel() > MAX_BATTERY_LEVEL) {
                 response.setStatusCode(400);
                 response.setMessage("Battery level must be between 0 and 100");
-                return false;
+                return null;
             }
         }
 
         // Validate speed if provided
-        if (locationDTO.getSpeed() != null && locationDTO.getSpeed().compareTo(BigDecimal.ZERO) < 0) {
+        if (fix.speed() < 0) {
             response.setStatusCode(400);
             response.setMessage("Speed must be positive");
-            return false;
+            return null;
         }
 
-        return true;
-    }
+        // Batch fixes are not bean-validated, so the remaining DTO constraints are checked here too
+        if (fix.accuracy() < 0) {
+            response.setStatusCode(400);
+            response.setMessage("Accuracy must be positive");
+            return null;
+        }
 
-    /**
-     * Get active load for phone number with error handling
-     */
-    private LoadMaster getActiveLoadForPhoneNumber(String phoneNumber, DriverLocationDTO response) {
-        Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(
-                phoneNumber,
-                List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED));
+        if (fix.heading() < 0 || fix.heading() > MAX_HEADING) {
+            response.setStatusCode(400);
+            response.setMessage("Heading must be between 0 and 360");
+            return null;
+        }
 
-        if (loadMaster.isEmpty()) {
+        if (fix.estimatedArrival() != LocationFix.ABSENT && fix.estimatedArrival() < 0) {
             response.setStatusCode(400);
-            response.setMessage("No active load found for this phone number");
+            response.setMessage("Estimated arrival must be positive");
+            return null;
+        }
+
+        if (fix.destinationWarehouse() != null && fix.destinationWarehouse().length() > MAX_DESTINATION_WAREHOUSE_LENGTH) {
+            response.setStatusCode(400);
+            response.setMessage("Destination warehouse cannot exceed 30 characters");
             return null;
         }
 
-        return loadMaster.get();
+        return fix;
     }
 
     /**
-     * Create and save location record with transaction safety
+     * Check the driver has an active load
      */
-    @Transactional
-    private DriverLocation createAndSaveLocation(LoadMaster foundLoad, DriverLocationDTO locationDTO) {
-        try {
-            DriverLocation location = new DriverLocation();
-
-            location.setLoadMaster(foundLoad);
-
-            // Set location data from DTO
-            location.setLatitude(locationDTO.getLatitude());
-            location.setLongitude(locationDTO.getLongitude());
-            location.setAccuracy(locationDTO.getAccuracy());
-            location.setSpeed(locationDTO.getSpeed());
-            location.setHeading(locationDTO.getHeading());
-            location.setAltitude(locationDTO.getAltitude());
-            location.setIsMoving(locationDTO.getIsMoving());
-            location.setBatteryLevel(locationDTO.getBatteryLevel());
-            location.setEstimatedArrival(locationDTO.getEstimatedArrival());
-            location.setDestinationWarehouse(locationDTO.getDestinationWarehouse());
-            location.setLocationTimestamp(LocalDateTime.now());
-            location.setRecordCreateId(SYSTEM_USER);
-            location.setRecordCreateDate(LocalDateTime.now());
-
-            // Set Lat and Long for Load
-            foundLoad.setLastDriverLatitude(locationDTO.getLatitude());
-            foundLoad.setLastDriverLongitude(locationDTO.getLongitude());
-            loadMasterRepo.save(foundLoad);
-            return driverLocationRepo.save(location);
-        } catch (Exception e) {
-            log.error("Error creating location record", e);
-            return null;
+    private boolean hasActiveLoad(DriverPrincipal principal, DriverLocationDTO response) {
+        if (!principal.hasActiveLoad()) {
+            response.setStatusCode(400);
+            response.setMessage("No active load found for this phone number");
+            return false;
         }
+        return true;
+    }
+
+    /**
+     * Copy an error set by a single-location helper onto the batch response
+     */
+    private DriverLocationBatchDTO copyStepError(DriverLocationDTO stepResponse, DriverLocationBatchDTO response) {
+        response.setStatusCode(stepResponse.getStatusCode());
+        response.setMessage(stepResponse.getMessage());
+        return response;
     }
 
 
     /**
-     * Set successful location response
+     * Set response for a location rejected because the write buffer is full
      */
-    private void setSuccessfulLocationResponse(DriverLocationDTO response, DriverLocation location) {
-        response.setStatusCode(200);
-        response.setMessage("Location data retrieved successfully");
-        response.setId(location.getId());
-        response.setLoadId(location.getLoadMaster().getLoadId());
-        response.setLatitude(location.getLatitude());
-        response.setLongitude(location.getLongitude());
-        response.setAccuracy(location.getAccuracy());
-        response.setSpeed(location.getSpeed());
-        response.setHeading(location.getHeading());
-        response.setAltitude(location.getAltitude());
-        response.setIsMoving(location.getIsMoving());
-        response.setBatteryLevel(location.getBatteryLevel());
-        response.setEstimatedArrival(location.getEstimatedArrival());
-        response.setDestinationWarehouse(location.getDestinationWarehouse());
-        response.setLocationTimestamp(location.getLocationTimestamp());
+    private void setBusyResponse(DriverLocationDTO response) {
+        response.setStatusCode(429);
+        response.setMessage("Location service is busy, please retry");
     }
 
     /**
-     * Extract token from request with validation
+     * Set successful location response
      */
-    private String extractToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        return (token != null && token.startsWith("Bearer ")) ? token.substring(7) : null;
+    private void setSuccessfulLocationResponse(DriverLocationDTO response, String loadId,
+                                               DriverLocationDTO locationDTO, LocalDateTime locationTimestamp) {
+        response.setStatusCode(200);
+        response.setMessage("Location data accepted successfully");
+        response.setLoadId(loadId);
+        response.setLatitude(locationDTO.getLatitude());
+        response.setLongitude(locationDTO.getLongitude());
+        response.setAccuracy(locationDTO.getAccuracy());
+        response.setSpeed(locationDTO.getSpeed());
+        response.setHeading(locationDTO.getHeading());
+        response.setAltitude(locationDTO.getAltitude());
+        response.setIsMoving(locationDTO.getIsMoving());
+        response.setBatteryLevel(locationDTO.getBatteryLevel());
+        response.setEstimatedArrival(locationDTO.getEstimatedArrival());
+        response.setDestinationWarehouse(locationDTO.getDestinationWarehouse());
+        response.setLocationTimestamp(locationTimestamp);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,216 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.dto.LocationFix;
+import com.qulron.qulron_engine.entity.DriverLocation;
+import com.qulron.qulron_engine.repository.DriverLocationRepo;
+import com.qulron.qulron_engine.repository.LoadMasterRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for driver locations.
+ * Request threads only enqueue validated fixes; a background flusher writes them to
+ * t_driver_location in batches, either when flush-batch-size fixes are waiting or every
+ * flush-interval-ms, whichever comes first. Fixes stay primitive while queued and are only turned
+ * into DriverLocation entities by the flusher.
+ * Room in the buffer is reserved through a semaphore before anything is enqueued, so a batch is
+ * either taken whole or rejected whole even with many producers.
+ */
+@Slf4j
+@Component
+public class DriverLocationWriteBuffer {
+
+    private final BlockingQueue<PendingLocation> queue;
+    // One permit per free slot, taken by producers and given back when the flusher drains
+    private final Semaphore capacity;
+    private final int flushBatchSize;
+    private final long flushIntervalMillis;
+
+    private final DriverLocationRepo driverLocationRepo;
+    private final LoadMasterRepo loadMasterRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private ScheduledExecutorService scheduler;
+    @Value("${app.system-user}")
+    private String SYSTEM_USER;
+
+    public DriverLocationWriteBuffer(DriverLocationRepo driverLocationRepo, LoadMasterRepo loadMasterRepo,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.location.buffer.capacity:10000}") int capacity,
+                                     @Value("${app.location.buffer.flush-batch-size:500}") int flushBatchSize,
+                                     @Value("${app.location.buffer.flush-interval-ms:1000}") long flushIntervalMillis) {
+        this.driverLocationRepo = driverLocationRepo;
+        this.loadMasterRepo = loadMasterRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = new Semaphore(capacity);
+        this.flushBatchSize = flushBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    private record PendingLocation(long lmId, LocationFix fix, long receivedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Driver-Location-Flusher");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Enqueue one fix, returns false when the buffer is full
+     */
+    public boolean offer(Long lmId, LocationFix fix) {
+        if (!capacity.tryAcquire()) {
+            return false;
+        }
+        // Cannot fail, the permit reserved the slot
+        queue.add(new PendingLocation(lmId, fix, LocationFix.toEpochMillis(LocalDateTime.now())));
+        requestFlushIfFull();
+        return true;
+    }
+
+    /**
+     * Enqueue a batch of fixes, returns false without enqueuing anything when the
+     * buffer does not have room for all of them
+     */
+    public boolean offerAll(Long lmId, List<LocationFix> fixes) {
+        if (fixes.isEmpty()) {
+            return true;
+        }
+        if (!capacity.tryAcquire(fixes.size())) {
+            return false;
+        }
+        long receivedAt = LocationFix.toEpochMillis(LocalDateTime.now());
+        for (LocationFix fix : fixes) {
+            queue.add(new PendingLocation(lmId, fix, receivedAt));
+        }
+        requestFlushIfFull();
+        return true;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Write whatever is still buffered before the datasource goes away
+        log.info("Flushing {} buffered driver locations on shutdown", queue.size());
+        flush();
+    }
+
+    private void requestFlushIfFull() {
+        if (queue.size() >= flushBatchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushRequested.set(false);
+            List<PendingLocation> pending = new ArrayList<>(flushBatchSize);
+            int drained;
+            while ((drained = queue.drainTo(pending, flushBatchSize)) > 0) {
+                capacity.release(drained);
+                writeBatch(pending);
+                pending.clear();
+            }
+        } catch (Exception e) {
+            log.error("Unexpected error flushing driver locations", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<PendingLocation> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    driverLocationRepo.saveAll(batch.stream().map(this::toEntity).toList()));
+            log.debug("Flushed {} driver locations", batch.size());
+        } catch (Exception e) {
+            // One bad row (e.g. a retried fix hitting uk_driver_location_load_timestamp) fails the
+            // whole batch, so fall back to row by row to keep the good ones
+            log.warn("Batch write of {} driver locations failed, retrying row by row: {}", batch.size(), e.getMessage());
+            writeRowByRow(batch);
+        }
+    }
+
+    private void writeRowByRow(List<PendingLocation> batch) {
+        int failed = 0;
+        for (PendingLocation pending : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> driverLocationRepo.save(toEntity(pending)));
+            } catch (Exception e) {
+                failed++;
+                log.debug("Dropping driver location for lm_id: {} at {}: {}", pending.lmId(),
+                        LocationFix.toLocalDateTime(pending.fix().locationTimestamp()), e.getMessage());
+            }
+        }
+        if (failed > 0) {
+            log.error("Dropped {} of {} driver locations that could not be saved", failed, batch.size());
+        }
+    }
+
+    /**
+     * Build the location record, the only place a queued fix is converted to DECIMAL values.
+     * Runs inside the write transaction; the load is referenced by id without being read.
+     */
+    private DriverLocation toEntity(PendingLocation pending) {
+        LocationFix fix = pending.fix();
+        DriverLocation location = new DriverLocation();
+
+        location.setLoadMaster(loadMasterRepo.getReferenceById(pending.lmId()));
+        location.setLatitude(LocationFix.toDecimal(fix.latitude()));
+        location.setLongitude(LocationFix.toDecimal(fix.longitude()));
+        location.setAccuracy(LocationFix.toDecimal(fix.accuracy()));
+        location.setSpeed(LocationFix.toDecimal(fix.speed()));
+        location.setHeading(LocationFix.toDecimal(fix.heading()));
+        location.setAltitude(LocationFix.toDecimal(fix.altitude()));
+        location.setIsMoving(fix.moving());
+        location.setBatteryLevel(LocationFix.toInteger(fix.batteryLevel()));
+        location.setEstimatedArrival(LocationFix.toInteger(fix.estimatedArrival()));
+        location.setDestinationWarehouse(fix.destinationWarehouse());
+        location.setLocationTimestamp(LocationFix.toLocalDateTime(fix.locationTimestamp()));
+        location.setRecordCreateId(SYSTEM_USER);
+        location.setRecordCreateDate(LocationFix.toLocalDateTime(pending.receivedAt()));
+        return location;
+    }
+}
@@ -1,7 +1,5 @@
 package com.qulron.qulron_engine.service;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.qulron.qulron_engine.dto.*;
 import com.qulron.qulron_engine.entity.*;
 import com.qulron.qulron_engine.enums.Role;
@@ -9,11 +7,9 @@ import com.qulron.qulron_engine.enums.Status;
 import com.qulron.qulron_engine.repository.*;
 import com.qulron.qulron_engine.utility.DeviceFingerprintUtils;
 import com.qulron.qulron_engine.utility.JWTUtils;
-import com.twilio.Twilio;
-import com.twilio.rest.api.v2010.account.Message;
-import com.twilio.type.PhoneNumber;
+import com.qulron.qulron_engine.utility.PhoneNumberUtils;
+import com.qulron.qulron_engine.utility.YardLocationIndex;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -23,30 +19,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class DriverService {
 
-    private static final int MAX_LOGIN_ATTEMPTS = 5;
-    private static final long RATE_LIMIT_WINDOW = 15 * 60 * 1000; // 15 minutes in milliseconds
-    // In-memory storage for verification codes and rate limiting
-    private final Cache<@NonNull String,@NonNull String> verificationCodes = CacheBuilder.newBuilder()
-            .expireAfterWrite(10, TimeUnit.MINUTES)
-            .maximumSize(10_000)
-            .build();
-
-    private final Cache<@NonNull String,@NonNull Integer> loginAttempts = CacheBuilder.newBuilder()
-            .expireAfterWrite(15, TimeUnit.MINUTES)
-            .maximumSize(10_000)
-            .build();
-
-    private final Cache<@NonNull String, @NonNull Long> lastAttemptTime = CacheBuilder.newBuilder()
-            .expireAfterWrite(15, TimeUnit.MINUTES)
-            .maximumSize(10_000)
-            .build();
+    private static final long VERIFICATION_CODE_TTL = 10 * 60 * 1000; // 10 minutes in milliseconds
+    // Verification codes and rate limiting, shared between instances with app.session-store.type=postgres
+    private final SessionStateStore sessionStateStore;
     private final LoadMasterRepo loadMasterRepo;
     private final LoadDetailRepo loadDetailRepo;
     private final OrderRepo orderRepo;
@@ -55,36 +35,20 @@ public class DriverService {
     private final JWTUtils jwtUtils;
     private final DeviceFingerprintUtils deviceFingerprintUtils;
     private final TrailerService trailerService;
-    private final TaskService taskService;
+    private final GeofenceService geofenceService;
+    private final SmsOutbox smsOutbox;
+    private final ActiveLoadDirectory activeLoadDirectory;
+    private final LoadVersionRegistry loadVersionRegistry;
     private final YardLocationService yardLocationService;
     private final String SYSTEM_USER;
-    private final String TWILIO_ACCOUNT_SID;
-    private final String TWILIO_AUTH_TOKEN;
-    private final String TWILIO_PHONE;
-    private static final double[][] FACILITY_BOUNDARY = {
-            {40.52302959924054, -74.32324877112171}, // Point 1
-            {40.523202602650116, -74.32639714054851}, // Point 2
-            {40.522228010948794, -74.32654886919558}, // Point 3
-            {40.52255095415221, -74.3299172453026}, // Point 4
-            {40.51962710810491, -74.3305014006403}, // Point 5
-            {40.5191945756738, -74.3267461166252}, // Point 6
-            {40.51901579475845, -74.32685232666907}, // Point 7
-            {40.51868130020615, -74.32425018037173}, // Point 8
-            {40.52066517452486, -74.32373430297169}, // Point 9
-            {40.5205556016006, -74.32201976919733}, // Point 10
-            {40.51801230609231, -74.32154182395904}, // Point 11
-            {40.518219925668284, -74.32056317406513}, // Point 12
-            {40.520930455590985, -74.32133699016521}, // Point 13
-            {40.52114383308044, -74.32358257414191}, // Point 14
-            {40.52298923171724, -74.32334739472645}  // Point 15
-    };
 
     public DriverService(LoadMasterRepo loadMasterRepo, LoadDetailRepo loadDetailRepo, OrderRepo orderRepo,
                          TrailerRepo trailerRepo, WmsSstSndTabRepo wmsSstSndTabRepo, JWTUtils jwtUtils,
                          DeviceFingerprintUtils deviceFingerprintUtils, TrailerService trailerService,
-                         TaskService taskService, YardLocationService yardLocationService,
-                         @Value("${app.system-user}") String SYSTEM_USER, @Value("${twilio.account.sid}") String TWILIO_ACCOUNT_SID,
-                         @Value("${twilio.auth.token}") String TWILIO_AUTH_TOKEN, @Value("${twilio.account.phone}") String TWILIO_PHONE) {
+                         GeofenceService geofenceService,
+                         SessionStateStore sessionStateStore, SmsOutbox smsOutbox, ActiveLoadDirectory activeLoadDirectory,
+                         LoadVersionRegistry loadVersionRegistry, YardLocationService yardLocationService,
+                         @Value("${app.system-user}") String SYSTEM_USER) {
         this.loadMasterRepo = loadMasterRepo;
         this.loadDetailRepo = loadDetailRepo;
         this.orderRepo = orderRepo;
@@ -93,12 +57,13 @@ public class DriverService {
         this.jwtUtils = jwtUtils;
         this.deviceFingerprintUtils = deviceFingerprintUtils;
         this.trailerService = trailerService;
-        this.taskService = taskService;
+        this.geofenceService = geofenceService;
+        this.sessionStateStore = sessionStateStore;
+        this.smsOutbox = smsOutbox;
+        this.activeLoadDirectory = activeLoadDirectory;
+        this.loadVersionRegistry = loadVersionRegistry;
         this.yardLocationService = yardLocationService;
         this.SYSTEM_USER = SYSTEM_USER;
-        this.TWILIO_ACCOUNT_SID = TWILIO_ACCOUNT_SID;
-        this.TWILIO_AUTH_TOKEN = TWILIO_AUTH_TOKEN;
-        this.TWILIO_PHONE = TWILIO_PHONE;
     }
     private static WmsSstSndTab getWmsSstSndTab(LoadMaster foundLoad, String orderNumbers, Trailer founderTrailer, String SYSTEM_USER) {
         WmsSstSndTab msg = new WmsSstSndTab();
@@ -139,8 +104,10 @@ public class DriverService {
             return response;
         }
 
-        // Check rate limiting
-        if (isRateLimited(phoneNumber)) {
+        // Check rate limiting, the format check above guarantees a key
+        long phoneKey = PhoneNumberUtils.toKey(phoneNumber);
+        String normalizedPhone = PhoneNumberUtils.format(phoneKey);
+        if (sessionStateStore.isRateLimited(phoneKey)) {
             log.warn("Too many login attempts for phone: {}. Please try again in 15 minutes.", phoneNumber);
             response.setStatusCode(429);
             response.setMessage("Too many login attempts. Please try again in 15 minutes.");
@@ -149,9 +116,7 @@ public class DriverService {
         }
 
         // Check if phone number already has an order with NEW or ACTIVE status
-        Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(phoneNumber, List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED));
-
-        if (loadMaster.isEmpty()) {
+        if (activeLoadDirectory.find(normalizedPhone).isEmpty()) {
             log.warn("No active order found for phone: {}", phoneNumber);
 
             response.setStatusCode(400);
@@ -162,24 +127,28 @@ public class DriverService {
 
         // Generate verification code (6 digits)
         String verificationCode = generateVerificationCode();
-        verificationCodes.put(phoneNumber, verificationCode);
 
         // Format phone number for Twilio
         String formattedPhoneNumber = formatPhoneNumberForTwilio(phoneNumber);
 
-         Twilio.init(TWILIO_ACCOUNT_SID, TWILIO_AUTH_TOKEN);
-         Message.creator(
-         new PhoneNumber(formattedPhoneNumber),
-         new PhoneNumber(TWILIO_PHONE),
-         "Welcome to Arizona Beverages,Your Verification code: " + verificationCode)
-         .create();
+        // Stored before it is sent, a code that could not be stored never reaches the driver
+        sessionStateStore.putVerificationCode(phoneKey, verificationCode, VERIFICATION_CODE_TTL);
+
+        // Sent by the outbox workers, the request does not wait for the SMS provider
+        if (!smsOutbox.enqueue(formattedPhoneNumber,
+                "Welcome to Arizona Beverages,Your Verification code: " + verificationCode)) {
+            response.setStatusCode(503);
+            response.setMessage("Unable to send a verification code right now. Please try again in a few minutes.");
+            response.setMessageCode("Message_Code_26");
+            return response;
+        }
 
         response.setStatusCode(200);
         response.setMessage("Verification code sent to your phone number");
         response.setMessageCode("Message_Code_17");
         response.setPhoneNumber(phoneNumber);
 
-        log.info("Verification code sent successfully to: {}", phoneNumber);
+        log.info("Verification code queued for: {}", phoneNumber);
         return response;
     }
 
@@ -213,46 +182,42 @@ public class DriverService {
             return response;
         }
 
-        // Check rate limiting
-        if (isRateLimited(phoneNumber)) {
+        // The format check above guarantees a key, the load is looked up with the number it stands for
+        long phoneKey = PhoneNumberUtils.toKey(phoneNumber);
+        String normalizedPhone = PhoneNumberUtils.format(phoneKey);
+
+        // Get order details, before the code is used up
+        Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(normalizedPhone, ActiveLoadDirectory.ACTIVE_STATUSES);
+
+        if (loadMaster.isEmpty()) {
+            response.setStatusCode(404);
+            response.setMessage("No active order found for this phone number.");
+            response.setMessageCode("Message_Code_16");
+            return response;
+        }
+
+        // Verify the code, checks rate limiting and counts a failed attempt in the same step
+        SessionStateStore.LoginCheck check = sessionStateStore.verifyCode(phoneKey, verificationCode);
+        if (check == SessionStateStore.LoginCheck.RATE_LIMITED) {
             response.setStatusCode(429);
             response.setMessage("Too many login attempts. Please try again in 15 minutes.");
             response.setMessageCode("Message_Code_15");
             return response;
         }
-
-        // Verify the code
-        String storedCode = verificationCodes.getIfPresent(phoneNumber);
-        if (storedCode == null || !storedCode.equals(verificationCode)) {
+        if (check == SessionStateStore.LoginCheck.INVALID_CODE) {
             log.warn("Invalid verification code for phone: {}", phoneNumber);
 
-            incrementLoginAttempts(phoneNumber);
             response.setStatusCode(401);
             response.setMessage("Invalid verification code. Please check the code and try again.");
             response.setMessageCode("Message_Code_19");
             return response;
         }
 
-        // Get order details
-        Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(phoneNumber, List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED));
-
-        if (loadMaster.isEmpty()) {
-            response.setStatusCode(404);
-            response.setMessage("No active order found for this phone number.");
-            response.setMessageCode("Message_Code_16");
-            return response;
-        }
-
-        // Clear verification code and login attempts on successful login
-        verificationCodes.invalidate(phoneNumber);
-        loginAttempts.invalidate(phoneNumber);
-        lastAttemptTime.invalidate(phoneNumber);
-
         try {
             // Generate device fingerprint and location for mobile-friendly authentication
             String deviceFingerprint = deviceFingerprintUtils.generateDeviceFingerprint(request);
             String location = deviceFingerprintUtils.extractLocation(request);
-            var jwt = jwtUtils.generateToken(phoneNumber, Role.DRIVER, deviceFingerprint, location);
+            var jwt = jwtUtils.generateToken(normalizedPhone, Role.DRIVER, deviceFingerprint, location);
 
             LoadMaster foundLoadMaster = loadMaster.get();
 
@@ -275,33 +240,19 @@ public class DriverService {
     }
 
     @Transactional
-    public DriverArrivalResponseDTO submitArrival(HttpServletRequest request, DriverArrivalRequestDTO driverArrivalRequestDTO) {
+    public DriverArrivalResponseDTO submitArrival(DriverPrincipal principal, DriverArrivalRequestDTO driverArrivalRequestDTO) {
         DriverArrivalResponseDTO response = new DriverArrivalResponseDTO();
         try {
-            String token = extractToken(request);
-            if (token == null) {
+            // Token, device and location were validated by JWTAuthFilter
+            if (principal == null) {
                 response.setStatusCode(401);
                 response.setMessage("Authorization token is missing");
                 response.setMessageCode("Message_Code_6");
                 return response;
             }
 
-            String phoneNumber = jwtUtils.extractPhoneNumber(token);
-
-            // Mobile-friendly token validation with device fingerprinting
-            String currentDeviceFingerprint = deviceFingerprintUtils.generateDeviceFingerprint(request);
-            String currentLocation = deviceFingerprintUtils.extractLocation(request);
-
-            if (!jwtUtils.isTokenValid(token, phoneNumber, currentDeviceFingerprint, currentLocation)) {
-                response.setStatusCode(401);
-                response.setMessage("Invalid or expired token");
-                response.setMessageCode("Message_Code_20");
-                log.warn("Invalid token for arrival submission by phone: {} from device: {}", phoneNumber, currentDeviceFingerprint);
-                return response;
-            }
-
             if(driverArrivalRequestDTO.isLocationTracking()){
-                if (!isDriverInsideFacilityBoundary(driverArrivalRequestDTO.getDriverLat(),driverArrivalRequestDTO.getDriverLng())){
+                if (!geofenceService.isInsideFacility(driverArrivalRequestDTO.getDriverLat(),driverArrivalRequestDTO.getDriverLng())){
                     response.setStatusCode(400);
                     response.setMessage("Driver is not within the facility");
                     response.setMessageCode("Message_Code_25");
@@ -310,8 +261,9 @@ public class DriverService {
 
             }
 
-            // Get load details
-            Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(phoneNumber, List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED));
+            // Get load details, the active load was resolved with the principal
+            Optional<LoadMaster> loadMaster = principal.hasActiveLoad()
+                    ? loadMasterRepo.findByIdForUpdate(principal.lmId()) : Optional.empty();
 
             if (loadMaster.isEmpty()) {
                 response.setStatusCode(400);
@@ -320,84 +272,9 @@ public class DriverService {
                 return response;
             }
 
-            LoadMaster foundLoadMaster = loadMaster.get();
-
-            boolean isDriverHere = foundLoadMaster.getLoadStatus() != Status.CREATED && foundLoadMaster.getLoadStatus() != Status.CANCELLED;
-
-            if (isDriverHere) {
-                response.setStatusCode(400);
-                response.setMessage("Driver has already confirmed to be here");
-                response.setMessageCode("Message_Code_22");
-                return response;
-            }
-
-            List<LoadDetail> loadDetailList = loadDetailRepo.findByLoadId(foundLoadMaster.getLoadId());
-            if (loadDetailList.isEmpty()) {
-                response.setStatusCode(400);
-                response.setMessage("No Orders Found in the load, Please contact Us");
-                response.setMessageCode("Message_Code_21");
-            }
-
-            Optional<Trailer> trailer = trailerRepo.findByLoadMaster_Id(foundLoadMaster.getId());
-            if (trailer.isEmpty()) {
-                response.setStatusCode(400);
-                response.setMessage("Arrival can't be submitted without a trailer entered. Please use a different phone number or contact us if you think this is wrong");
-                response.setMessageCode("Message_Code_23");
-                return response;
-            }
-
-            Trailer foundTrailer = trailer.get();
-
-            foundLoadMaster.setLoadStatus(Status.ACTIVATED);
-            foundLoadMaster.setRecordUpdateId(SYSTEM_USER);
-            foundLoadMaster.setRecordUpdateDate(LocalDateTime.now());
-            LoadMaster loadResult = loadMasterRepo.save(foundLoadMaster);
-            if (loadResult.getId() > 0) {
-                StringBuilder orderNumbers = new StringBuilder();
-                for (LoadDetail loadDetail : loadDetailList) {
-                    loadDetail.setOrderStatus(Status.ACTIVATED);
-                    LoadDetail savedLoadDetail = loadDetailRepo.save(loadDetail);
-
-                    if (savedLoadDetail.getId() > 0) {
-                        Optional<Order> order = orderRepo.findByOrderNumber(savedLoadDetail.getOrderNumber());
-                        if (order.isEmpty()) {
-                            log.error("Failed to save order for order number: {} , it was not found", loadDetail.getOrderNumber());
-                            throw new RuntimeException("Failed to save order, order was not found");
-                        }
-                        Order foundOrder;
-                        foundOrder = order.get();
-                        foundOrder.setOrderStatus(Status.ACTIVATED);
-                        foundOrder.setRecordUpdateId(SYSTEM_USER);
-                        foundOrder.setRecordUpdateDate(LocalDateTime.now());
-                        Order savedOrder = orderRepo.save(foundOrder);
-                        orderNumbers.append(savedOrder.getOrderNumber()).append(" ");
-                        if (savedOrder.getId() <= 0) {
-                            log.error("Failed to save order for order number: {}", foundOrder.getOrderNumber());
-                            throw new RuntimeException("Failed to save order");
-                        }
-
-                    } else {
-                        log.error("Failed to save load detail for order number: {}", loadDetail.getOrderNumber());
-                        throw new RuntimeException("Failed to save load detail");
-                    }
-
-                }
-
-                WmsSstSndTab msg = getWmsSstSndTab(foundLoadMaster, String.valueOf(orderNumbers), foundTrailer, SYSTEM_USER);
-                WmsSstSndTab result = wmsSstSndTabRepo.save(msg);
-
-                if (result.getId() <= 0) {
-                    log.error("Failed to send message to HighJump for load number: {}", foundLoadMaster.getLoadId());
-                    throw new RuntimeException("Failed to submit arrival for order");
-                }
-
-                response.setStatusCode(200);
-                response.setMessage("Arrival Confirmed");
-                log.info("Arrival confirmed for phone: {} from device: {}", phoneNumber, currentDeviceFingerprint);
-
-            } else {
-                log.error("Failed to save load detail for load number: {}", foundLoadMaster.getLoadId());
-                throw new RuntimeException("Failed to save load detail");
+            activateLoad(loadMaster.get(), response);
+            if (response.getStatusCode() == 200) {
+                log.info("Arrival confirmed for phone: {} from device: {}", principal.phoneNumber(), principal.deviceFingerprint());
             }
 
         } catch (Exception e) {
@@ -410,147 +287,187 @@ public class DriverService {
         return response;
     }
 
-    private boolean isDriverInsideFacilityBoundary(double driverLat, double driverLng) {
-        boolean isInside = false;
-        int prev = FACILITY_BOUNDARY.length - 1;
+    /**
+     * Confirm arrival of a load detected by the geofence - same transition as the arrival button,
+     * without token checks since it runs on the location event thread
+     */
+    @Transactional
+    public DriverArrivalResponseDTO confirmArrival(Long lmId) {
+        DriverArrivalResponseDTO response = new DriverArrivalResponseDTO();
+        Optional<LoadMaster> loadMaster = loadMasterRepo.findByIdForUpdate(lmId);
+        if (loadMaster.isEmpty() || loadMaster.get().getLoadStatus() != Status.CREATED) {
+            response.setStatusCode(400);
+            response.setMessage("No load waiting for arrival");
+            return response;
+        }
+
+        activateLoad(loadMaster.get(), response);
+        return response;
+    }
+
+    /**
+     * Move a load and its orders to ACTIVATED and queue the ADD01 message for WMS.
+     * The load must have been read with findByIdForUpdate in the surrounding transaction, the
+     * arrival button and the geofence can confirm the same load at the same time.
+     * Throws on a failed save so the surrounding transaction rolls back.
+     */
+    private void activateLoad(LoadMaster foundLoadMaster, DriverArrivalResponseDTO response) {
+        boolean isDriverHere = foundLoadMaster.getLoadStatus() != Status.CREATED && foundLoadMaster.getLoadStatus() != Status.CANCELLED;
+
+        if (isDriverHere) {
+            response.setStatusCode(400);
+            response.setMessage("Driver has already confirmed to be here");
+            response.setMessageCode("Message_Code_22");
+            return;
+        }
+
+        List<LoadDetail> loadDetailList = loadDetailRepo.findByLoadId(foundLoadMaster.getLoadId());
+        if (loadDetailList.isEmpty()) {
+            response.setStatusCode(400);
+            response.setMessage("No Orders Found in the load, Please contact Us");
+            response.setMessageCode("Message_Code_21");
+        }
 
-        for (int i = 0; i < FACILITY_BOUNDARY.length; i++) {
-            double currentLat = FACILITY_BOUNDARY[i][0];
-            double currentLng = FACILITY_BOUNDARY[i][1];
-            double prevLat = FACILITY_BOUNDARY[prev][0];
-            double prevLng = FACILITY_BOUNDARY[prev][1];
+        Optional<Trailer> trailer = trailerRepo.findByLoadMaster_Id(foundLoadMaster.getId());
+        if (trailer.isEmpty()) {
+            response.setStatusCode(400);
+            response.setMessage("Arrival can't be submitted without a trailer entered. Please use a different phone number or contact us if you think this is wrong");
+            response.setMessageCode("Message_Code_23");
+            return;
+        }
+
+        Trailer foundTrailer = trailer.get();
+
+        foundLoadMaster.setLoadStatus(Status.ACTIVATED);
+        foundLoadMaster.setRecordUpdateId(SYSTEM_USER);
+        foundLoadMaster.setRecordUpdateDate(LocalDateTime.now());
+        LoadMaster loadResult = loadMasterRepo.save(foundLoadMaster);
+        activeLoadDirectory.invalidate(foundLoadMaster.getPhoneNumber());
+        loadVersionRegistry.bump(foundLoadMaster.getPhoneNumber());
+        if (loadResult.getId() > 0) {
+            StringBuilder orderNumbers = new StringBuilder();
+            for (LoadDetail loadDetail : loadDetailList) {
+                loadDetail.setOrderStatus(Status.ACTIVATED);
+                LoadDetail savedLoadDetail = loadDetailRepo.save(loadDetail);
+
+                if (savedLoadDetail.getId() > 0) {
+                    Optional<Order> order = orderRepo.findByOrderNumber(savedLoadDetail.getOrderNumber());
+                    if (order.isEmpty()) {
+                        log.error("Failed to save order for order number: {} , it was not found", loadDetail.getOrderNumber());
+                        throw new RuntimeException("Failed to save order, order was not found");
+                    }
+                    Order foundOrder;
+                    foundOrder = order.get();
+                    foundOrder.setOrderStatus(Status.ACTIVATED);
+                    foundOrder.setRecordUpdateId(SYSTEM_USER);
+                    foundOrder.setRecordUpdateDate(LocalDateTime.now());
+                    Order savedOrder = orderRepo.save(foundOrder);
+                    orderNumbers.append(savedOrder.getOrderNumber()).append(" ");
+                    if (savedOrder.getId() <= 0) {
+                        log.error("Failed to save order for order number: {}", foundOrder.getOrderNumber());
+                        throw new RuntimeException("Failed to save order");
+                    }
+
+                } else {
+                    log.error("Failed to save load detail for order number: {}", loadDetail.getOrderNumber());
+                    throw new RuntimeException("Failed to save load detail");
+                }
+
+            }
 
-            // Ray casting algorithm
-            boolean intersects = ((currentLat > driverLat) != (prevLat > driverLat)) &&
-                    (driverLng < (prevLng - currentLng) * (driverLat - currentLat) /
-                            (prevLat - currentLat) + currentLng);
+            WmsSstSndTab msg = getWmsSstSndTab(foundLoadMaster, String.valueOf(orderNumbers), foundTrailer, SYSTEM_USER);
+            WmsSstSndTab result = wmsSstSndTabRepo.save(msg);
 
-            if (intersects) {
-                isInside = !isInside;
+            if (result.getId() <= 0) {
+                log.error("Failed to send message to HighJump for load number: {}", foundLoadMaster.getLoadId());
+                throw new RuntimeException("Failed to submit arrival for order");
             }
-            prev = i;
+
+            response.setStatusCode(200);
+            response.setMessage("Arrival Confirmed");
+
+        } else {
+            log.error("Failed to save load detail for load number: {}", foundLoadMaster.getLoadId());
+            throw new RuntimeException("Failed to save load detail");
         }
-        return isInside;
     }
 
-    public DriverDashboardDataDTO getDashboardData(HttpServletRequest request) {
+    public DriverDashboardDataDTO getDashboardData(DriverPrincipal principal) {
         DriverDashboardDataDTO response = new DriverDashboardDataDTO();
         try {
-            String token = extractToken(request);
-            if (token == null) {
+            // Token, device and location were validated by JWTAuthFilter
+            if (principal == null) {
                 response.setStatusCode(401);
                 response.setMessage("Authorization token is missing");
                 response.setMessageCode("Message_Code_6");
                 return response;
             }
 
-            String phoneNumber = jwtUtils.extractPhoneNumber(token);
-
-            // Mobile-friendly token validation with device fingerprinting
-            String currentDeviceFingerprint = deviceFingerprintUtils.generateDeviceFingerprint(request);
-            String currentLocation = deviceFingerprintUtils.extractLocation(request);
-
-            if (!jwtUtils.isTokenValid(token, phoneNumber, currentDeviceFingerprint, currentLocation)) {
-                response.setStatusCode(401);
-                response.setMessage("Invalid or expired token");
-                response.setMessageCode("Message_Code_20");
-                log.warn("Invalid token for dashboard access by phone: {} from device: {}", phoneNumber, currentDeviceFingerprint);
-                return response;
-            }
-
-            Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(phoneNumber,
-                    List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED, Status.FINISHED));
-            if (loadMaster.isEmpty()) {
+            // FINISHED loads are shown too, so this is not the principal's active load
+            Optional<LoadMasterRepo.DashboardView> dashboard = loadMasterRepo.findDashboardByPhoneNumber(principal.phoneNumber());
+            if (dashboard.isEmpty()) {
                 response.setStatusCode(400);
                 response.setMessage("This phone number has no current order. Please use a different phone number or contact us if you think this is wrong");
                 response.setMessageCode("Message_Code_16");
                 return response;
             }
-            LoadMaster foundLoad = loadMaster.get();
+            LoadMasterRepo.DashboardView view = dashboard.get();
 
-            List<LoadDetail> loadDetailList = loadDetailRepo.findByLoadId(foundLoad.getLoadId());
-            if (loadDetailList.isEmpty()) {
+            if (view.getOrderNumbers() == null) {
                 response.setStatusCode(400);
                 response.setMessage("No Orders Found in the load, Please contact Us");
                 response.setMessageCode("Message_Code_21");
+                return response;
             }
 
-            // Get order numbers as comma-separated string
-            String orderNumbers = loadDetailList.stream().map(LoadDetail::getOrderNumber).collect(Collectors.joining(", "));
-
-            LoadDetail firstLoadDetail = loadDetailList.getFirst();
-
-            Optional<Order> firstOrder = orderRepo.findByOrderNumber(firstLoadDetail.getOrderNumber());
-            if (firstOrder.isEmpty()) {
-                log.error("Failed to find order for order number: {} , it was not found", firstLoadDetail.getOrderNumber());
+            if (view.getWarehouse() == null) {
+                log.error("Failed to find order for order number: {} , it was not found", view.getFirstOrderNumber());
                 throw new RuntimeException("Failed to save order, order was not found");
             }
-            Order foundFirstOrder = firstOrder.get();
-            String destinationWarehouse = foundFirstOrder.getWarehouse();
-            String warehouseAddress = foundFirstOrder.getWarehouseAddress();
 
-            Optional<Trailer> trailer = trailerRepo.findByLoadMaster_Id(foundLoad.getId());
-            if (trailer.isEmpty()) {
+            if (!Boolean.TRUE.equals(view.getHasTrailer())) {
                 response.setStatusCode(400);
                 response.setMessage("Arrival can't be submitted without a trailer entered. Please use a different phone number or contact us if you think this is wrong");
                 response.setMessageCode("Message_Code_23");
                 return response;
             }
 
-            Trailer foundTrailer = trailer.get();
-
-            boolean isDriverHere = foundLoad.getLoadStatus() != Status.CREATED && foundLoad.getLoadStatus() != Status.CANCELLED;
-
-            Task task = new Task();
-
-            if (foundLoad.getLoadStatus() != Status.FINISHED) {
-                task = taskService.getTask(foundLoad.getId());
-            }
+            String loadStatus = view.getLoadStatus();
+            boolean isDriverHere = !Status.CREATED.getStatus().equals(loadStatus) && !Status.CANCELLED.getStatus().equals(loadStatus);
 
             response.setStatusCode(200);
             response.setMessage("Order Data Retrieved");
-            response.setLoadId(foundLoad.getLoadId());
-            response.setPhoneNumber(foundLoad.getPhoneNumber());
-            response.setOrderNumbers(orderNumbers);
-            response.setDriverName(foundLoad.getDriverName());
-            response.setBrokerName(foundLoad.getBrokerName());
+            response.setLoadId(view.getLoadId());
+            response.setPhoneNumber(view.getPhoneNumber());
+            response.setOrderNumbers(view.getOrderNumbers());
+            response.setDriverName(view.getDriverName());
+            response.setBrokerName(view.getBrokerName());
             response.setDriverArrived(isDriverHere);
-            response.setDestinationWarehouse(destinationWarehouse);
-            response.setWarehouseAddress(warehouseAddress);
-            response.setTrailerNumber(foundTrailer.getTrailerNumber());
-            response.setPotentialWeight(foundLoad.getPotentialWeight());
-            response.setCustomerName(foundFirstOrder.getCustomerName());
+            response.setDestinationWarehouse(view.getWarehouse());
+            response.setWarehouseAddress(view.getWarehouseAddress());
+            response.setTrailerNumber(view.getTrailerNumber());
+            response.setPotentialWeight(view.getPotentialWeight());
+            response.setCustomerName(view.getCustomerName());
 
-            String address = foundFirstOrder.getDestCity() + " " + foundFirstOrder.getDestState() + " " + foundFirstOrder.getDestCountryCode();
+            String address = view.getDestCity() + " " + view.getDestState() + " " + view.getDestCountryCode();
             response.setCustomerAddress(address);
 
-            if (task != null &&  foundLoad.getLoadStatus() != Status.FINISHED) {
-                YardLocation yardLocation = yardLocationService.getYardLocationData(task.getDestinationArea(), task.getDestinationLocation());
-
-                if (yardLocation != null) {
-                    response.setCurrentDestinationArea(yardLocation.getArea());
-                    response.setCurrentDestinationLocation(yardLocation.getLocation());
-                    response.setLatitude(yardLocation.getLatitude());
-                    response.setLongitude(yardLocation.getLongitude());
+            // Only set while the load has an open task, FINISHED loads never have one here
+            if (view.getTaskDestinationArea() != null) {
+                YardLocationIndex.Yard yard = yardLocationService.getYardLocationData(
+                        view.getTaskDestinationArea(), view.getTaskDestinationLocation());
+                if (yard != null) {
+                    response.setCurrentDestinationArea(yard.area());
+                    response.setCurrentDestinationLocation(yard.location());
+                    response.setLatitude(yard.latitude());
+                    response.setLongitude(yard.longitude());
                 } else {
-                    response.setCurrentDestinationArea(task.getDestinationArea());
-                    response.setCurrentDestinationLocation(task.getDestinationLocation());
-                    response.setLatitude(null);
-                    response.setLongitude(null);
+                    response.setCurrentDestinationArea(view.getTaskDestinationArea());
+                    response.setCurrentDestinationLocation(view.getTaskDestinationLocation());
                 }
-
-            } else if (foundLoad.getLoadStatus() != Status.FINISHED) {
-                YardLocation yardLocation = yardLocationService.getYardLocationData("EXIT", "EXIT");
-            }
-
-            else {
-                response.setCurrentDestinationArea(null);
-                response.setCurrentDestinationLocation(null);
-                response.setLatitude(null);
-                response.setLongitude(null);
             }
 
-            log.debug("Dashboard data retrieved for phone: {} from device: {}", phoneNumber, currentDeviceFingerprint);
+            log.debug("Dashboard data retrieved for phone: {} from device: {}", principal.phoneNumber(), principal.deviceFingerprint());
 
         } catch (Exception e) {
             response.setStatusCode(500);
@@ -565,36 +482,6 @@ public class DriverService {
         return String.format("%06d", random.nextInt(1000000));
     }
 
-    private boolean isRateLimited(String phoneNumber) {
-        Integer attempts = loginAttempts.getIfPresent(phoneNumber);
-        Long lastAttempt = lastAttemptTime.getIfPresent(phoneNumber);
-
-        if (attempts == null || lastAttempt == null) {
-            return false;
-        }
-
-        // Check if rate limit window has passed
-        if (System.currentTimeMillis() - lastAttempt > RATE_LIMIT_WINDOW) {
-            loginAttempts.invalidate(phoneNumber);
-            lastAttemptTime.invalidate(phoneNumber);
-            return false;
-        }
-
-        return attempts >= MAX_LOGIN_ATTEMPTS;
-    }
-
-    private void incrementLoginAttempts(String phoneNumber) {
-        Integer attempts = loginAttempts.getIfPresent(phoneNumber);
-        if (attempts == null) attempts = 0;
-        loginAttempts.put(phoneNumber, attempts + 1);
-        lastAttemptTime.put(phoneNumber, System.currentTimeMillis());
-    }
-
-    private String extractToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        return (token != null && token.startsWith("Bearer ")) ? token.substring(7) : null;
-    }
-
     // Helper method to format phone number for Twilio
     private String formatPhoneNumberForTwilio(String phoneNumber) {
         if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
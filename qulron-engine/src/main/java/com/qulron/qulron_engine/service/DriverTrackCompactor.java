@@ -0,0 +1,141 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.dto.LocationFix;
+import com.qulron.qulron_engine.entity.DriverTrack;
+import com.qulron.qulron_engine.repository.DriverLocationRepo;
+import com.qulron.qulron_engine.repository.DriverTrackRepo;
+import com.qulron.qulron_engine.utility.TrackCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compacts the t_driver_location rows of FINISHED loads into one t_driver_track row per load,
+ * so route history is a single blob read instead of a scan over the location partitions.
+ * Loads are picked up once they have not changed for compact-after-minutes, which leaves time
+ * for buffered fixes to land. Raw rows are only purged when purge-raw is enabled.
+ */
+@Slf4j
+@Component
+public class DriverTrackCompactor {
+
+    private final long INTERVAL;
+    private final long COMPACT_AFTER_MINUTES;
+    private final int BATCH_SIZE;
+    private final boolean PURGE_RAW;
+
+    @Value("${app.system-user}")
+    private String SYSTEM_USER;
+
+    private final DriverTrackRepo driverTrackRepo;
+    private final DriverLocationRepo driverLocationRepo;
+    private final TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService scheduler;
+
+    public DriverTrackCompactor(DriverTrackRepo driverTrackRepo, DriverLocationRepo driverLocationRepo,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.track.compaction.interval-ms:300000}") long interval,
+                                @Value("${app.track.compaction.compact-after-minutes:10}") long compactAfterMinutes,
+                                @Value("${app.track.compaction.batch-size:50}") int batchSize,
+                                @Value("${app.track.compaction.purge-raw:false}") boolean purgeRaw) {
+        this.driverTrackRepo = driverTrackRepo;
+        this.driverLocationRepo = driverLocationRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        INTERVAL = interval;
+        COMPACT_AFTER_MINUTES = compactAfterMinutes;
+        BATCH_SIZE = batchSize;
+        PURGE_RAW = purgeRaw;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Driver-Track-Compaction");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::compactFinishedLoads, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void compactFinishedLoads() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(COMPACT_AFTER_MINUTES);
+            List<Long> loadIds = driverTrackRepo.findLoadsToCompact(cutoff, BATCH_SIZE);
+            for (Long lmId : loadIds) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                compact(lmId);
+            }
+            if (!loadIds.isEmpty()) {
+                log.info("Compacted driver tracks of {} finished loads", loadIds.size());
+            }
+        } catch (Exception e) {
+            log.error("Unexpected error compacting driver tracks", e);
+        }
+    }
+
+    private void compact(Long lmId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<DriverLocationRepo.TrackPoint> points = driverLocationRepo.findTrackPoints(lmId);
+
+                int size = points.size();
+                double[] lats = new double[size];
+                double[] lngs = new double[size];
+                long[] epochSeconds = new long[size];
+                for (int i = 0; i < size; i++) {
+                    DriverLocationRepo.TrackPoint point = points.get(i);
+                    lats[i] = point.getLatitude().doubleValue();
+                    lngs[i] = point.getLongitude().doubleValue();
+                    epochSeconds[i] = LocationFix.toEpochMillis(point.getLocationTimestamp()) / 1000;
+                }
+
+                // An empty track is still written so the load is not picked up again
+                DriverTrack track = new DriverTrack();
+                track.setLmId(lmId);
+                track.setPointCount(size);
+                track.setStartTimestamp(size > 0 ? points.get(0).getLocationTimestamp() : null);
+                track.setEndTimestamp(size > 0 ? points.get(size - 1).getLocationTimestamp() : null);
+                track.setTrack(TrackCodec.encode(lats, lngs, epochSeconds));
+                track.setRecordCreateId(SYSTEM_USER);
+                track.setRecordCreateDate(LocalDateTime.now());
+                driverTrackRepo.save(track);
+
+                if (PURGE_RAW && size > 0) {
+                    driverLocationRepo.deleteByLmId(lmId);
+                }
+                log.debug("Compacted {} fixes of load {}", size, lmId);
+            });
+        } catch (Exception e) {
+            // Left without a track row, the next run retries it
+            log.error("Failed to compact driver track of load {}: {}", lmId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.qulron.qulron_engine.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs messages instead of sending them, with an optional delay to stand in for the provider
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sms.gateway", havingValue = "fake")
+public class FakeSmsGateway implements SmsGateway {
+
+    private final long LATENCY;
+
+    public FakeSmsGateway(@Value("${app.sms.fake.latency-ms:0}") long latency) {
+        LATENCY = latency;
+    }
+
+    @Override
+    public void send(String toPhoneNumber, String body) {
+        if (LATENCY > 0) {
+            try {
+                Thread.sleep(LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sending SMS", e);
+            }
+        }
+        // The body holds the verification code
+        log.debug("Fake SMS to: {} body: {}", toPhoneNumber, body);
+    }
+}
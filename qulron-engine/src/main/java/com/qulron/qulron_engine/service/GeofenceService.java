@@ -0,0 +1,131 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.entity.Geofence;
+import com.qulron.qulron_engine.enums.ZoneType;
+import com.qulron.qulron_engine.repository.GeofenceRepo;
+import com.qulron.qulron_engine.utility.GeofenceIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geofence zones from t_geofence, kept in an in-memory index and reloaded periodically
+ * so zones can be added or changed without a restart.
+ */
+@Slf4j
+@Service
+public class GeofenceService {
+
+    private final GeofenceRepo geofenceRepo;
+    private final long RELOAD_INTERVAL;
+    private final double CELL_SIZE_DEGREES;
+    private volatile GeofenceIndex index = GeofenceIndex.EMPTY;
+    private ScheduledExecutorService scheduler;
+
+    public GeofenceService(GeofenceRepo geofenceRepo,
+                           @Value("${app.geofence.reload-interval-ms:60000}") long reloadInterval,
+                           @Value("${app.geofence.cell-size-degrees:0.001}") double cellSizeDegrees) {
+        this.geofenceRepo = geofenceRepo;
+        RELOAD_INTERVAL = reloadInterval;
+        CELL_SIZE_DEGREES = cellSizeDegrees;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Geofence-Reload");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::reload, RELOAD_INTERVAL, RELOAD_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Zones containing the point
+     */
+    public List<GeofenceIndex.Zone> findZones(double lat, double lng) {
+        return index.findZones(lat, lng);
+    }
+
+    public boolean isInsideFacility(double lat, double lng) {
+        return index.isInside(ZoneType.FACILITY, lat, lng);
+    }
+
+    /**
+     * Rebuild the index from the active zones, the previous index stays in use if loading fails
+     */
+    public void reload() {
+        try {
+            List<GeofenceIndex.Zone> zones = new ArrayList<>();
+            for (Geofence geofence : geofenceRepo.findByActiveTrue()) {
+                GeofenceIndex.Zone zone = toZone(geofence);
+                if (zone != null) {
+                    zones.add(zone);
+                }
+            }
+
+            GeofenceIndex previous = index;
+            index = new GeofenceIndex(zones, CELL_SIZE_DEGREES);
+            if (previous.size() != zones.size()) {
+                log.info("Geofence index loaded with {} zones", zones.size());
+                if (zones.stream().noneMatch(zone -> zone.type() == ZoneType.FACILITY)) {
+                    log.warn("No active FACILITY geofence, arrivals with location tracking will be rejected");
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to reload geofences, keeping {} loaded zones", index.size(), e);
+        }
+    }
+
+    /**
+     * Parse "lat lng, lat lng, ..." into a zone, null if the polygon is invalid
+     */
+    private GeofenceIndex.Zone toZone(Geofence geofence) {
+        try {
+            String[] points = geofence.getPolygon().trim().split("\\s*,\\s*");
+            if (points.length < 3) {
+                log.warn("Geofence {} has less than 3 points, skipped", geofence.getZoneCode());
+                return null;
+            }
+
+            double[] lats = new double[points.length];
+            double[] lngs = new double[points.length];
+            for (int i = 0; i < points.length; i++) {
+                String[] latLng = points[i].trim().split("\\s+");
+                lats[i] = Double.parseDouble(latLng[0]);
+                lngs[i] = Double.parseDouble(latLng[1]);
+            }
+            return GeofenceIndex.Zone.of(geofence.getZoneCode(), geofence.getZoneType(),
+                    geofence.getTaskDestinationArea(), lats, lngs);
+        } catch (RuntimeException e) {
+            log.warn("Geofence {} has an invalid polygon, skipped: {}", geofence.getZoneCode(), e.getMessage());
+            return null;
+        }
+    }
+}
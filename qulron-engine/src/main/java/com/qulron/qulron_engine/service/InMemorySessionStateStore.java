@@ -0,0 +1,114 @@
+package com.qulron.qulron_engine.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qulron.qulron_engine.utility.TokenRevocationList;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session state in local memory, only correct while a single engine instance runs
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.session-store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionStateStore implements SessionStateStore {
+
+    private final long CLEANUP_INTERVAL;
+    private final int REVOCATION_MAX_SIZE;
+
+    // Code and failed logins per phone key, one entry so every transition is a single compute
+    private final Cache<@NonNull Long, @NonNull LoginState> loginStates = CacheBuilder.newBuilder()
+            .expireAfterWrite(60, TimeUnit.MINUTES)
+            .maximumSize(10_000)
+            .build();
+
+    private final TokenRevocationList revokedTokens;
+    private ScheduledExecutorService scheduler;
+
+    public InMemorySessionStateStore(MeterRegistry meterRegistry,
+                                     @Value("${jwt.blacklist-cleanup-interval:3600000}") long cleanupInterval,
+                                     @Value("${jwt.revocation.max-size:1000000}") int revocationMaxSize,
+                                     @Value("${jwt.revocation.false-positive-rate:0.001}") double revocationFalsePositiveRate) {
+        CLEANUP_INTERVAL = cleanupInterval;
+        REVOCATION_MAX_SIZE = revocationMaxSize;
+        this.revokedTokens = new TokenRevocationList(revocationMaxSize, revocationFalsePositiveRate);
+        meterRegistry.gauge("jwt.revoked.tokens", revokedTokens, TokenRevocationList::size);
+    }
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "JWT-Blacklist-Cleanup");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleAtFixedRate(() -> revokedTokens.evictExpired(System.currentTimeMillis()),
+                CLEANUP_INTERVAL, CLEANUP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void putVerificationCode(long phoneKey, String code, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        loginStates.asMap().compute(phoneKey, (key, previous) ->
+                (previous == null ? LoginState.EMPTY : previous).withCode(code, now + ttlMillis, now));
+    }
+
+    @Override
+    public boolean isRateLimited(long phoneKey) {
+        LoginState state = loginStates.getIfPresent(phoneKey);
+        return state != null && state.isRateLimited(System.currentTimeMillis());
+    }
+
+    @Override
+    public LoginCheck verifyCode(long phoneKey, String code) {
+        long now = System.currentTimeMillis();
+        Verification[] verification = new Verification[1];
+        loginStates.asMap().compute(phoneKey, (key, previous) -> {
+            verification[0] = (previous == null ? LoginState.EMPTY : previous).verify(code, now);
+            return verification[0].next();
+        });
+        return verification[0].check();
+    }
+
+    @Override
+    public void revokeToken(UUID jti, long expiresAt) {
+        if (!revokedTokens.revoke(jti, expiresAt, System.currentTimeMillis())) {
+            // Still revoked, but lookups get slower; jwt.revocation.max-size should cover a token lifetime of logouts
+            log.warn("Token revocation list holds {} live entries, more than jwt.revocation.max-size {}",
+                    revokedTokens.size(), REVOCATION_MAX_SIZE);
+        }
+    }
+
+    @Override
+    public boolean isTokenRevoked(UUID jti) {
+        return revokedTokens.isRevoked(jti, System.currentTimeMillis());
+    }
+}
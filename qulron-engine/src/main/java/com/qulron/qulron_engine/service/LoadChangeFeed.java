@@ -0,0 +1,133 @@
+package com.qulron.qulron_engine.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads t_load_change (11_load_change_feed.sql): drops the ActiveLoadDirectory entry of every
+ * phone whose load changed, so loads finished or cancelled by the WMS procedures or the admin
+ * backend stop being served from the cache within poll-interval-ms, and bumps the dashboard
+ * version of every phone whose load, trailer or tasks changed.
+ * Change ids are handed out before commit, so a row can appear below ids already read; rows of
+ * the last overlap-ms are read again, and the ids already handled are skipped.
+ */
+@Slf4j
+@Component
+public class LoadChangeFeed {
+
+    private final long POLL_INTERVAL;
+    private final long OVERLAP;
+    private final long RETENTION_MINUTES;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActiveLoadDirectory activeLoadDirectory;
+    private final LoadVersionRegistry loadVersionRegistry;
+    private ScheduledExecutorService scheduler;
+
+    // Only touched by the scheduler thread
+    private long lastChangeId;
+    private final Map<Long, Long> recentChangeIds = new HashMap<>();
+
+    public LoadChangeFeed(JdbcTemplate jdbcTemplate, ActiveLoadDirectory activeLoadDirectory, LoadVersionRegistry loadVersionRegistry,
+                          @Value("${app.load-directory.feed.poll-interval-ms:1000}") long pollInterval,
+                          @Value("${app.load-directory.feed.overlap-ms:60000}") long overlap,
+                          @Value("${app.load-directory.feed.retention-minutes:60}") long retentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.activeLoadDirectory = activeLoadDirectory;
+        this.loadVersionRegistry = loadVersionRegistry;
+        POLL_INTERVAL = pollInterval;
+        OVERLAP = overlap;
+        RETENTION_MINUTES = retentionMinutes;
+    }
+
+    private record LoadChange(long changeId, String phoneNumber, boolean loadChanged) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Load-Change-Feed");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Nothing is cached yet, older changes do not matter
+        scheduler.execute(() -> {
+            try {
+                lastChangeId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(change_id), 0) FROM t_load_change", Long.class);
+            } catch (Exception e) {
+                log.error("Failed to read load change feed position: {}", e.getMessage());
+            }
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::purge, RETENTION_MINUTES, RETENTION_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void poll() {
+        try {
+            long now = System.currentTimeMillis();
+            List<LoadChange> changes = jdbcTemplate.query(
+                    "SELECT change_id, phone_number, source FROM t_load_change " +
+                            "WHERE change_id > ? OR changed_at > NOW() - make_interval(secs => ?) ORDER BY change_id",
+                    (rs, rowNum) -> new LoadChange(rs.getLong("change_id"), rs.getString("phone_number"),
+                            "L".equals(rs.getString("source"))),
+                    lastChangeId, OVERLAP / 1000.0);
+
+            int applied = 0;
+            for (LoadChange change : changes) {
+                if (recentChangeIds.putIfAbsent(change.changeId(), now) == null) {
+                    // Task and trailer changes do not change which load is active
+                    if (change.loadChanged()) {
+                        activeLoadDirectory.invalidate(change.phoneNumber());
+                    }
+                    loadVersionRegistry.bump(change.phoneNumber());
+                    applied++;
+                }
+                lastChangeId = Math.max(lastChangeId, change.changeId());
+            }
+            recentChangeIds.values().removeIf(seenAt -> now - seenAt > OVERLAP * 2);
+
+            if (applied > 0) {
+                log.debug("Applied {} load changes up to change id {}", applied, lastChangeId);
+            }
+        } catch (Exception e) {
+            log.error("Failed to read load change feed: {}", e.getMessage());
+        }
+    }
+
+    private void purge() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM t_load_change WHERE changed_at < NOW() - make_interval(mins => ?)",
+                    (int) RETENTION_MINUTES);
+            log.debug("Purged {} load changes", purged);
+        } catch (Exception e) {
+            log.error("Failed to purge load change feed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.qulron.qulron_engine.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listens on the load_change channel (11_load_change_feed.sql) and reacts to a change as soon as
+ * it commits: the phone's active load is dropped and its dashboard version bumped, then its
+ * drivers are told over DriverEventStream. Also listens on yard_location_change
+ * (12_yard_location_notify.sql) to reload the yard location index. Uses its own connection
+ * outside the Hikari pool, LISTEN holds a connection for the life of the application.
+ * Notifications sent while the connection is down are lost; LoadChangeFeed still catches them
+ * up, and after reconnecting the yard locations are reloaded, every dashboard version is
+ * dropped and every driver told to fetch.
+ */
+@Slf4j
+@Component
+public class LoadChangeListener {
+
+    private static final String CHANNEL = "load_change";
+    private static final String YARD_LOCATION_CHANNEL = "yard_location_change";
+
+    private final String URL;
+    private final String USERNAME;
+    private final String PASSWORD;
+    private final int POLL_TIMEOUT;
+    private final long RECONNECT_DELAY;
+
+    private final ActiveLoadDirectory activeLoadDirectory;
+    private final LoadVersionRegistry loadVersionRegistry;
+    private final DriverEventStream driverEventStream;
+    private final YardLocationService yardLocationService;
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    public LoadChangeListener(ActiveLoadDirectory activeLoadDirectory, LoadVersionRegistry loadVersionRegistry,
+                              DriverEventStream driverEventStream, YardLocationService yardLocationService,
+                              @Value("${spring.datasource.url}") String url,
+                              @Value("${spring.datasource.username}") String username,
+                              @Value("${spring.datasource.password}") String password,
+                              @Value("${app.load-change.listen.poll-timeout-ms:5000}") int pollTimeout,
+                              @Value("${app.load-change.listen.reconnect-delay-ms:5000}") long reconnectDelay) {
+        this.activeLoadDirectory = activeLoadDirectory;
+        this.loadVersionRegistry = loadVersionRegistry;
+        this.driverEventStream = driverEventStream;
+        this.yardLocationService = yardLocationService;
+        URL = url;
+        USERNAME = username;
+        PASSWORD = password;
+        POLL_TIMEOUT = pollTimeout;
+        RECONNECT_DELAY = reconnectDelay;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.running = true;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "Load-Change-Listener");
+            t.setDaemon(true);
+            return t;
+        });
+
+        executor.submit(this::listen);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (executor != null && !executor.isShutdown()) {
+            executor.shutdown();
+            try {
+                // The listener checks running between waits of poll-timeout-ms
+                if (!executor.awaitTermination(POLL_TIMEOUT + 1000L, TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + YARD_LOCATION_CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for load changes");
+
+                if (connectedBefore) {
+                    // Changes of the time without a connection were not heard
+                    yardLocationService.requestReload();
+                    loadVersionRegistry.invalidateAll();
+                    driverEventStream.publishAll();
+                }
+                connectedBefore = true;
+
+                while (running) {
+                    // Also fails when the connection is gone
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            try {
+                                if (YARD_LOCATION_CHANNEL.equals(notification.getName())) {
+                                    yardLocationService.requestReload();
+                                    continue;
+                                }
+                                handle(notification.getParameter());
+                            } catch (Exception e) {
+                                log.error("Failed to handle load change notification: {}", notification.getParameter(), e);
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Load change listener lost its connection, reconnecting in {} ms: {}", RECONNECT_DELAY, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Payload: source:lm_id:phone_number
+    private void handle(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length < 3) {
+            log.warn("Ignoring malformed load change notification: {}", payload);
+            return;
+        }
+
+        String phoneNumber = parts[2];
+        // Task and trailer changes do not change which load is active
+        if ("L".equals(parts[0])) {
+            activeLoadDirectory.invalidate(phoneNumber);
+        }
+        // Before the push, so the fetch it triggers is not answered with 304
+        loadVersionRegistry.bump(phoneNumber);
+        driverEventStream.publish(phoneNumber, Long.parseLong(parts[1]));
+    }
+}
@@ -0,0 +1,142 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.dto.LocationFix;
+import com.qulron.qulron_engine.repository.LoadMasterRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latest known driver position per load, kept in memory.
+ * Location pings only update this registry; t_load_master.last_driver_latitude/longitude
+ * are written by a periodic checkpoint, once per load that moved since the last one.
+ */
+@Slf4j
+@Component
+public class LoadPositionRegistry {
+
+    private final Map<Long, LatestPosition> positions = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyLoads = ConcurrentHashMap.newKeySet();
+    private final long CHECKPOINT_INTERVAL;
+    private final long EVICT_AFTER;
+
+    private final LoadMasterRepo loadMasterRepo;
+    private final TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService scheduler;
+
+    public LoadPositionRegistry(LoadMasterRepo loadMasterRepo, PlatformTransactionManager transactionManager,
+                                @Value("${app.location.position.checkpoint-interval-ms:10000}") long checkpointInterval,
+                                @Value("${app.location.position.evict-after-minutes:60}") long evictAfterMinutes) {
+        this.loadMasterRepo = loadMasterRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        CHECKPOINT_INTERVAL = checkpointInterval;
+        EVICT_AFTER = TimeUnit.MINUTES.toMillis(evictAfterMinutes);
+    }
+
+    /**
+     * Latest fix of a load, as primitives
+     */
+    public record LatestPosition(double latitude, double longitude, long locationTimestamp, long receivedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Load-Position-Checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::checkpoint, CHECKPOINT_INTERVAL, CHECKPOINT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record a fix for a load, older fixes than the one already held are ignored
+     */
+    public void update(Long lmId, LocationFix fix) {
+        LatestPosition candidate = new LatestPosition(fix.latitude(), fix.longitude(),
+                fix.locationTimestamp(), System.currentTimeMillis());
+
+        LatestPosition stored = positions.merge(lmId, candidate,
+                (current, next) -> next.locationTimestamp() < current.locationTimestamp() ? current : next);
+        if (stored == candidate) {
+            dirtyLoads.add(lmId);
+        }
+    }
+
+    public Optional<LatestPosition> getLatestPosition(Long lmId) {
+        return Optional.ofNullable(positions.get(lmId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Persist the last positions before the datasource goes away
+        checkpoint();
+    }
+
+    private void checkpoint() {
+        try {
+            List<Long> loadIds = new ArrayList<>(dirtyLoads);
+            if (!loadIds.isEmpty()) {
+                // Clear the flag before reading so a fix arriving during the write marks the load again
+                loadIds.forEach(dirtyLoads::remove);
+                writePositions(loadIds);
+            }
+            evictIdleLoads();
+        } catch (Exception e) {
+            log.error("Unexpected error checkpointing load positions", e);
+        }
+    }
+
+    private void writePositions(List<Long> loadIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Long lmId : loadIds) {
+                    LatestPosition position = positions.get(lmId);
+                    if (position != null) {
+                        loadMasterRepo.updateLastDriverPosition(lmId,
+                                BigDecimal.valueOf(position.latitude()), BigDecimal.valueOf(position.longitude()));
+                    }
+                }
+            });
+            log.debug("Checkpointed positions of {} loads", loadIds.size());
+        } catch (Exception e) {
+            // Keep them dirty so the next checkpoint retries
+            dirtyLoads.addAll(loadIds);
+            log.error("Failed to checkpoint positions of {} loads: {}", loadIds.size(), e.getMessage());
+        }
+    }
+
+    private void evictIdleLoads() {
+        long cutoff = System.currentTimeMillis() - EVICT_AFTER;
+        positions.entrySet().removeIf(entry ->
+                entry.getValue().receivedAt() < cutoff && !dirtyLoads.contains(entry.getKey()));
+    }
+}
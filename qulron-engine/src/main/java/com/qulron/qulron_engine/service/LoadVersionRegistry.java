@@ -0,0 +1,86 @@
+package com.qulron.qulron_engine.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qulron.qulron_engine.utility.PhoneNumberUtils;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of each driver's dashboard, used as its ETag.
+ * Bumped when the driver's load, its trailer or its tasks change: by the engine right after its
+ * own commits and by LoadChangeFeed for every writer. Versions are kept per phone number since
+ * the dashboard shows the phone's current load, which itself changes when a new load starts.
+ * All versions come from one counter, so an entry created again after eviction never repeats a
+ * version a client may still hold; the instance id keeps them apart across restarts.
+ * Versions are local to one instance: an ETag from another instance never matches, so with several
+ * instances behind a balancer without sticky sessions a poll that changes instance gets a full
+ * response instead of 304. It is never answered 304 wrongly.
+ */
+@Component
+public class LoadVersionRegistry {
+
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong counter = new AtomicLong();
+    private final Cache<@NonNull Long, @NonNull AtomicLong> versions;
+
+    public LoadVersionRegistry(@Value("${app.load-directory.max-size:50000}") long maxSize) {
+        this.versions = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Current dashboard ETag of a phone number
+     */
+    public String etag(String phoneNumber) {
+        try {
+            AtomicLong version = versions.get(PhoneNumberUtils.toKey(phoneNumber), () -> new AtomicLong(counter.incrementAndGet()));
+            return "W/\"" + instanceId + "-" + version.get() + "\"";
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to read dashboard version", e.getCause());
+        }
+    }
+
+    /**
+     * Forget every version, the next poll of each driver gets a full response
+     */
+    public void invalidateAll() {
+        versions.invalidateAll();
+    }
+
+    /**
+     * Mark a phone's dashboard changed, after the current transaction commits if there is one
+     */
+    public void bump(String phoneNumber) {
+        // No driver polls with a number login rejects
+        if (!PhoneNumberUtils.isValid(phoneNumber)) {
+            return;
+        }
+        long phoneKey = PhoneNumberUtils.toKey(phoneNumber);
+        Runnable bump = () -> {
+            AtomicLong version = versions.getIfPresent(phoneKey);
+            // Without an entry no client holds a current version, the next read creates one
+            if (version != null) {
+                version.set(counter.incrementAndGet());
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package com.qulron.qulron_engine.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qulron.qulron_engine.dto.LocationFix;
+import com.qulron.qulron_engine.utility.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops fixes from a stationary driver before they reach t_driver_location.
+ * A fix is dropped only when the driver is not reported as moving, is within min-distance of the
+ * last stored fix, has not turned more than max-heading-delta, and the last stored fix is younger
+ * than keep-alive. Everything else is stored and becomes the new reference fix for the load.
+ * Deciding and remembering are separate steps: the caller commits the fixes it actually handed
+ * to the write buffer, so a fix rejected there never becomes the reference.
+ */
+@Component
+public class LocationDownsampler {
+
+    private final boolean ENABLED;
+    private final double MIN_DISTANCE_METERS;
+    private final double MAX_HEADING_DELTA;
+    private final long KEEP_ALIVE_MILLIS;
+
+    // Last stored fix per lm_id
+    private final Cache<@NonNull Long, @NonNull StoredFix> lastStoredFixes;
+
+    private final Counter storedCounter;
+    private final Counter droppedCounter;
+
+    public LocationDownsampler(MeterRegistry meterRegistry,
+                               @Value("${app.location.downsample.enabled:true}") boolean enabled,
+                               @Value("${app.location.downsample.min-distance-meters:25}") double minDistanceMeters,
+                               @Value("${app.location.downsample.max-heading-delta:20}") double maxHeadingDelta,
+                               @Value("${app.location.downsample.keep-alive-minutes:5}") long keepAliveMinutes) {
+        ENABLED = enabled;
+        MIN_DISTANCE_METERS = minDistanceMeters;
+        MAX_HEADING_DELTA = maxHeadingDelta;
+        KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(keepAliveMinutes);
+
+        // Entries older than the keep-alive would never drop anything, so they can go
+        this.lastStoredFixes = CacheBuilder.newBuilder()
+                .expireAfterWrite(keepAliveMinutes * 2, TimeUnit.MINUTES)
+                .maximumSize(50_000)
+                .build();
+
+        this.storedCounter = Counter.builder("driver.location.fixes")
+                .description("Driver location fixes after downsampling")
+                .tag("outcome", "stored")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("driver.location.fixes")
+                .description("Driver location fixes after downsampling")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+    }
+
+    private record StoredFix(double latitude, double longitude, double heading, long locationTimestamp) {
+    }
+
+    /**
+     * Decide whether a fix should be persisted, nothing is remembered until commit
+     */
+    public boolean shouldStore(Long lmId, LocationFix fix) {
+        if (!ENABLED) {
+            return true;
+        }
+        return shouldStore(lastStoredFixes.getIfPresent(lmId), fix);
+    }
+
+    /**
+     * The fixes of a batch to persist, in order; each is compared with the last one selected
+     * before it. Nothing is remembered until commit
+     */
+    public List<LocationFix> selectStored(Long lmId, List<LocationFix> fixes) {
+        if (!ENABLED) {
+            return fixes;
+        }
+
+        StoredFix reference = lastStoredFixes.getIfPresent(lmId);
+        List<LocationFix> stored = new ArrayList<>(fixes.size());
+        for (LocationFix fix : fixes) {
+            if (shouldStore(reference, fix)) {
+                stored.add(fix);
+                reference = newer(reference, toStoredFix(fix));
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Remember the fixes that were handed to the write buffer, the newest becomes the reference
+     */
+    public void commit(Long lmId, List<LocationFix> stored, int dropped) {
+        if (!ENABLED) {
+            return;
+        }
+
+        if (!stored.isEmpty()) {
+            StoredFix newest = null;
+            for (LocationFix fix : stored) {
+                newest = newer(newest, toStoredFix(fix));
+            }
+            lastStoredFixes.asMap().merge(lmId, newest, LocationDownsampler::newer);
+            storedCounter.increment(stored.size());
+        }
+        if (dropped > 0) {
+            droppedCounter.increment(dropped);
+        }
+    }
+
+    private boolean shouldStore(StoredFix previous, LocationFix fix) {
+        return Boolean.TRUE.equals(fix.moving()) || previous == null || isSignificant(previous, toStoredFix(fix));
+    }
+
+    private static StoredFix toStoredFix(LocationFix fix) {
+        return new StoredFix(fix.latitude(), fix.longitude(), fix.heading(), fix.locationTimestamp());
+    }
+
+    // Late fixes never replace a newer reference
+    private static StoredFix newer(StoredFix current, StoredFix candidate) {
+        return current == null || candidate.locationTimestamp() >= current.locationTimestamp() ? candidate : current;
+    }
+
+    private boolean isSignificant(StoredFix previous, StoredFix candidate) {
+        long age = candidate.locationTimestamp() - previous.locationTimestamp();
+        // Late fixes from a device backlog are kept, they fill gaps in the track
+        if (age < 0 || age >= KEEP_ALIVE_MILLIS) {
+            return true;
+        }
+
+        if (GeoUtils.distanceMeters(previous.latitude(), previous.longitude(),
+                candidate.latitude(), candidate.longitude()) >= MIN_DISTANCE_METERS) {
+            return true;
+        }
+
+        return !Double.isNaN(previous.heading()) && !Double.isNaN(candidate.heading())
+                && GeoUtils.headingDelta(previous.heading(), candidate.heading()) >= MAX_HEADING_DELTA;
+    }
+}
@@ -0,0 +1,204 @@
+package com.qulron.qulron_engine.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session state shared by all engine instances through tables of 10_session_state_tables.sql.
+ * Revocation checks run on every request, so they go through a local near-cache; a token revoked
+ * on another instance is seen here within near-cache-ttl-ms. When the database cannot be asked
+ * a token counts as revoked. Revocations are written in batches
+ * every flush-interval-ms, the revoking instance sees them at once through its near-cache.
+ * Login state is only touched on login; each change locks the phone's row and applies the
+ * LoginState transition inside one transaction, so concurrent attempts on any instance all count.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.session-store.type", havingValue = "postgres")
+public class PostgresSessionStateStore implements SessionStateStore {
+
+    // Near-cache value of a token that is not revoked
+    private static final long NOT_REVOKED = 0L;
+
+    private static final RowMapper<LoginState> LOGIN_STATE_MAPPER = (rs, rowNum) -> new LoginState(
+            rs.getString("code"), rs.getLong("code_expires_at"), rs.getInt("attempts"), rs.getLong("window_start"));
+
+    private final long FLUSH_INTERVAL;
+    private final long SWEEP_INTERVAL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<@NonNull UUID, @NonNull Long> revokedNearCache;
+    private final BlockingQueue<PendingRevocation> pendingRevocations = new LinkedBlockingQueue<>();
+    private ScheduledExecutorService scheduler;
+
+    public PostgresSessionStateStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                     @Value("${app.session-store.near-cache-ttl-ms:2000}") long nearCacheTtl,
+                                     @Value("${app.session-store.flush-interval-ms:500}") long flushInterval,
+                                     @Value("${app.session-store.sweep-interval-ms:300000}") long sweepInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        FLUSH_INTERVAL = flushInterval;
+        SWEEP_INTERVAL = sweepInterval;
+
+        this.revokedNearCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(nearCacheTtl, TimeUnit.MILLISECONDS)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    private record PendingRevocation(UUID jti, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Session-State-Store");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::flushRevocations, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::sweepExpired, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Revocations still queued must reach the other instances
+        flushRevocations();
+    }
+
+    @Override
+    public void putVerificationCode(long phoneKey, String code, long ttlMillis) {
+        transactionTemplate.executeWithoutResult(status -> {
+            long now = System.currentTimeMillis();
+            saveLoginState(phoneKey, lockLoginState(phoneKey).withCode(code, now + ttlMillis, now));
+        });
+    }
+
+    @Override
+    public boolean isRateLimited(long phoneKey) {
+        List<LoginState> states = jdbcTemplate.query(
+                "SELECT code, code_expires_at, attempts, window_start FROM t_session_login_state WHERE phone_key = ?",
+                LOGIN_STATE_MAPPER, phoneKey);
+        return !states.isEmpty() && states.getFirst().isRateLimited(System.currentTimeMillis());
+    }
+
+    @Override
+    public LoginCheck verifyCode(long phoneKey, String code) {
+        return transactionTemplate.execute(status -> {
+            Verification verification = lockLoginState(phoneKey).verify(code, System.currentTimeMillis());
+            saveLoginState(phoneKey, verification.next());
+            return verification.check();
+        });
+    }
+
+    private LoginState lockLoginState(long phoneKey) {
+        // Make sure there is a row to lock, concurrent first attempts would otherwise both insert
+        jdbcTemplate.update("INSERT INTO t_session_login_state(phone_key, code_expires_at, attempts, window_start, expires_at) " +
+                "VALUES (?, 0, 0, 0, 0) ON CONFLICT (phone_key) DO NOTHING", phoneKey);
+        return jdbcTemplate.queryForObject(
+                "SELECT code, code_expires_at, attempts, window_start FROM t_session_login_state WHERE phone_key = ? FOR UPDATE",
+                LOGIN_STATE_MAPPER, phoneKey);
+    }
+
+    private void saveLoginState(long phoneKey, LoginState state) {
+        if (state == null) {
+            jdbcTemplate.update("DELETE FROM t_session_login_state WHERE phone_key = ?", phoneKey);
+            return;
+        }
+        jdbcTemplate.update("UPDATE t_session_login_state SET code = ?, code_expires_at = ?, attempts = ?, " +
+                        "window_start = ?, expires_at = ? WHERE phone_key = ?",
+                state.code(), state.codeExpiresAt(), state.attempts(), state.windowStart(), state.expiresAt(), phoneKey);
+    }
+
+    @Override
+    public void revokeToken(UUID jti, long expiresAt) {
+        revokedNearCache.put(jti, expiresAt);
+        pendingRevocations.add(new PendingRevocation(jti, expiresAt));
+    }
+
+    @Override
+    public boolean isTokenRevoked(UUID jti) {
+        try {
+            long expiresAt = revokedNearCache.get(jti, () -> loadRevocation(jti));
+            return expiresAt > System.currentTimeMillis();
+        } catch (ExecutionException e) {
+            // Fail closed; not cached, so the next request asks the database again
+            log.error("Failed to check token revocation, treating token as revoked: {}", e.getCause().getMessage());
+            return true;
+        }
+    }
+
+    private long loadRevocation(UUID jti) {
+        List<Long> expiresAt = jdbcTemplate.queryForList(
+                "SELECT expires_at FROM t_session_revoked_token WHERE jti = ?", Long.class, jti);
+        return expiresAt.isEmpty() ? NOT_REVOKED : expiresAt.getFirst();
+    }
+
+    private void flushRevocations() {
+        List<PendingRevocation> batch = new ArrayList<>();
+        pendingRevocations.drainTo(batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate("INSERT INTO t_session_revoked_token(jti, expires_at) VALUES (?, ?) " +
+                            "ON CONFLICT (jti) DO UPDATE SET expires_at = GREATEST(t_session_revoked_token.expires_at, EXCLUDED.expires_at)",
+                    batch, batch.size(), (ps, revocation) -> {
+                        ps.setObject(1, revocation.jti());
+                        ps.setLong(2, revocation.expiresAt());
+                    });
+            log.debug("Flushed {} token revocations", batch.size());
+        } catch (Exception e) {
+            // Retried on the next flush
+            pendingRevocations.addAll(batch);
+            log.error("Failed to flush {} token revocations: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void sweepExpired() {
+        try {
+            long now = System.currentTimeMillis();
+            int logins = jdbcTemplate.update("DELETE FROM t_session_login_state WHERE expires_at < ?", now);
+            int revocations = jdbcTemplate.update("DELETE FROM t_session_revoked_token WHERE expires_at < ?", now);
+            log.debug("Swept expired session state - login states: {} revocations: {}", logins, revocations);
+        } catch (Exception e) {
+            log.error("Failed to sweep expired session state: {}", e.getMessage());
+        }
+    }
+}
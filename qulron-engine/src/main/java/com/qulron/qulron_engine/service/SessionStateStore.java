@@ -0,0 +1,93 @@
+package com.qulron.qulron_engine.service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver session state that must be the same on every engine instance: SMS verification codes,
+ * failed login attempts and revoked tokens. Selected with app.session-store.type,
+ * "memory" (default, single instance) or "postgres" (shared, see 10_session_state_tables.sql).
+ * Login state is keyed by the phone number normalized with PhoneNumberUtils.toKey.
+ */
+public interface SessionStateStore {
+
+    int MAX_LOGIN_ATTEMPTS = 5;
+    long LOGIN_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    enum LoginCheck {
+        VERIFIED,
+        INVALID_CODE,
+        RATE_LIMITED
+    }
+
+    /**
+     * Outcome of a login and the state to keep, next is null when nothing is left to keep
+     */
+    record Verification(LoginCheck check, LoginState next) {
+    }
+
+    /**
+     * Verification code and failed logins of one phone number, times in epoch millis.
+     * Every store applies the same transitions, so the rate limit window is only enforced here.
+     */
+    record LoginState(String code, long codeExpiresAt, int attempts, long windowStart) {
+
+        public static final LoginState EMPTY = new LoginState(null, 0, 0, 0);
+
+        /**
+         * This state with the failed logins dropped once the window has passed
+         */
+        public LoginState current(long now) {
+            return attempts > 0 && now - windowStart >= LOGIN_WINDOW_MILLIS
+                    ? new LoginState(code, codeExpiresAt, 0, 0) : this;
+        }
+
+        public boolean isRateLimited(long now) {
+            return attempts >= MAX_LOGIN_ATTEMPTS && now - windowStart < LOGIN_WINDOW_MILLIS;
+        }
+
+        public LoginState withCode(String newCode, long expiresAt, long now) {
+            LoginState current = current(now);
+            return new LoginState(newCode, expiresAt, current.attempts, current.windowStart);
+        }
+
+        /**
+         * Outcome of a login with the given code
+         */
+        public Verification verify(String candidate, long now) {
+            LoginState current = current(now);
+            if (current.isRateLimited(now)) {
+                return new Verification(LoginCheck.RATE_LIMITED, current);
+            }
+            if (current.code != null && current.codeExpiresAt > now && current.code.equals(candidate)) {
+                return new Verification(LoginCheck.VERIFIED, null);
+            }
+            return new Verification(LoginCheck.INVALID_CODE, new LoginState(current.code, current.codeExpiresAt,
+                    current.attempts + 1, current.attempts == 0 ? now : current.windowStart));
+        }
+
+        /**
+         * When the state stops mattering, after both the code and the window have expired
+         */
+        public long expiresAt() {
+            return Math.max(codeExpiresAt, attempts > 0 ? windowStart + LOGIN_WINDOW_MILLIS : 0);
+        }
+    }
+
+    void putVerificationCode(long phoneKey, String code, long ttlMillis);
+
+    boolean isRateLimited(long phoneKey);
+
+    /**
+     * Check a login code in one atomic step: a match consumes the code and clears the failed
+     * logins, a mismatch counts a failed login, nothing changes while rate limited
+     */
+    LoginCheck verifyCode(long phoneKey, String code);
+
+    /**
+     * Revoke a token id until expiresAt (epoch millis)
+     */
+    void revokeToken(UUID jti, long expiresAt);
+
+    boolean isTokenRevoked(UUID jti);
+}
@@ -0,0 +1,12 @@
+package com.qulron.qulron_engine.service;
+
+/**
+ * Sends one SMS, selected with app.sms.gateway: "twilio" (default) or "fake" for local and load tests
+ */
+public interface SmsGateway {
+
+    /**
+     * Send a message, throws when the provider did not accept it
+     */
+    void send(String toPhoneNumber, String body);
+}
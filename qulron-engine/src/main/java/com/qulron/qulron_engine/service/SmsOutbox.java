@@ -0,0 +1,234 @@
+package com.qulron.qulron_engine.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends SMS off the request thread. enqueue only adds to a bounded queue; a pool of workers
+ * hands messages to the SmsGateway, retrying failures with a growing backoff until max-attempts.
+ * After circuit-failure-threshold consecutive failures the circuit opens and nothing is sent for
+ * circuit-open-ms, queued messages wait instead of piling more load on a failing provider.
+ * Messages older than max-age are dropped, a verification code that late is of no use.
+ */
+@Slf4j
+@Component
+public class SmsOutbox {
+
+    private final int WORKERS;
+    private final int MAX_ATTEMPTS;
+    private final long RETRY_BACKOFF;
+    private final long MAX_AGE;
+    private final int CIRCUIT_FAILURE_THRESHOLD;
+    private final long CIRCUIT_OPEN;
+
+    private final SmsGateway smsGateway;
+    private final BlockingQueue<OutboundSms> queue;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long circuitOpenUntil;
+    private volatile boolean running;
+    private ExecutorService workers;
+    private ScheduledExecutorService retryScheduler;
+
+    private final Timer sentTimer;
+    private final Timer failedTimer;
+    private final Counter queueFullCounter;
+    private final Counter expiredCounter;
+    private final Counter exhaustedCounter;
+
+    public SmsOutbox(SmsGateway smsGateway, MeterRegistry meterRegistry,
+                     @Value("${app.sms.outbox.capacity:1000}") int capacity,
+                     @Value("${app.sms.outbox.workers:4}") int workers,
+                     @Value("${app.sms.outbox.max-attempts:3}") int maxAttempts,
+                     @Value("${app.sms.outbox.retry-backoff-ms:2000}") long retryBackoff,
+                     @Value("${app.sms.outbox.max-age-ms:120000}") long maxAge,
+                     @Value("${app.sms.outbox.circuit-failure-threshold:5}") int circuitFailureThreshold,
+                     @Value("${app.sms.outbox.circuit-open-ms:30000}") long circuitOpen) {
+        this.smsGateway = smsGateway;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        WORKERS = workers;
+        MAX_ATTEMPTS = maxAttempts;
+        RETRY_BACKOFF = retryBackoff;
+        MAX_AGE = maxAge;
+        CIRCUIT_FAILURE_THRESHOLD = circuitFailureThreshold;
+        CIRCUIT_OPEN = circuitOpen;
+
+        Gauge.builder("sms.outbox.queue", queue, BlockingQueue::size)
+                .description("SMS waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("sms.outbox.circuit.open", this, outbox -> outbox.isCircuitOpen() ? 1 : 0)
+                .description("1 while sending is paused after repeated gateway failures")
+                .register(meterRegistry);
+
+        this.sentTimer = Timer.builder("sms.send")
+                .description("SMS gateway calls")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("sms.send")
+                .description("SMS gateway calls")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.queueFullCounter = droppedCounter(meterRegistry, "queue_full");
+        this.expiredCounter = droppedCounter(meterRegistry, "expired");
+        this.exhaustedCounter = droppedCounter(meterRegistry, "attempts_exhausted");
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("sms.outbox.dropped")
+                .description("SMS dropped without being sent")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record OutboundSms(String toPhoneNumber, String body, long enqueuedAt, int attempt) {
+
+        OutboundSms nextAttempt() {
+            return new OutboundSms(toPhoneNumber, body, enqueuedAt, attempt + 1);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        this.running = true;
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(WORKERS, r -> {
+            Thread t = new Thread(r, "Sms-Outbox-" + workerNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < WORKERS; i++) {
+            workers.submit(this::work);
+        }
+
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Sms-Outbox-Retry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (ExecutorService executor : new ExecutorService[]{retryScheduler, workers}) {
+            if (executor != null && !executor.isShutdown()) {
+                executor.shutdownNow();
+                try {
+                    executor.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        if (!queue.isEmpty()) {
+            log.warn("Discarding {} unsent SMS on shutdown", queue.size());
+        }
+    }
+
+    /**
+     * Queue a message for sending, false when the outbox is full
+     */
+    public boolean enqueue(String toPhoneNumber, String body) {
+        if (!queue.offer(new OutboundSms(toPhoneNumber, body, System.currentTimeMillis(), 1))) {
+            queueFullCounter.increment();
+            log.warn("SMS outbox full, dropping message to: {}", toPhoneNumber);
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isCircuitOpen() {
+        return System.currentTimeMillis() < circuitOpenUntil;
+    }
+
+    private void work() {
+        while (running) {
+            OutboundSms sms;
+            try {
+                sms = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (sms == null) {
+                continue;
+            }
+
+            try {
+                process(sms);
+            } catch (Exception e) {
+                log.error("Unexpected error sending SMS", e);
+            }
+        }
+    }
+
+    private void process(OutboundSms sms) {
+        if (System.currentTimeMillis() - sms.enqueuedAt() > MAX_AGE) {
+            expiredCounter.increment();
+            log.warn("Dropping SMS to: {} after {} ms in the outbox", sms.toPhoneNumber(), MAX_AGE);
+            return;
+        }
+
+        long waitForCircuit = circuitOpenUntil - System.currentTimeMillis();
+        if (waitForCircuit > 0) {
+            // Not an attempt, hold it back until the circuit closes
+            schedule(sms, waitForCircuit);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            smsGateway.send(sms.toPhoneNumber(), sms.body());
+            sentTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            consecutiveFailures.set(0);
+        } catch (Exception e) {
+            failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            onFailure(sms, e);
+        }
+    }
+
+    private void onFailure(OutboundSms sms, Exception e) {
+        if (consecutiveFailures.incrementAndGet() >= CIRCUIT_FAILURE_THRESHOLD && !isCircuitOpen()) {
+            circuitOpenUntil = System.currentTimeMillis() + CIRCUIT_OPEN;
+            log.error("SMS gateway failed {} times in a row, pausing sends for {} ms",
+                    consecutiveFailures.get(), CIRCUIT_OPEN);
+        }
+
+        if (sms.attempt() >= MAX_ATTEMPTS) {
+            exhaustedCounter.increment();
+            log.error("Failed to send SMS to: {} after {} attempts: {}", sms.toPhoneNumber(), sms.attempt(), e.getMessage());
+            return;
+        }
+
+        log.warn("Failed to send SMS to: {} (attempt {}): {}", sms.toPhoneNumber(), sms.attempt(), e.getMessage());
+        schedule(sms.nextAttempt(), RETRY_BACKOFF * sms.attempt());
+    }
+
+    private void schedule(OutboundSms sms, long delay) {
+        if (!running) {
+            return;
+        }
+        retryScheduler.schedule(() -> {
+            if (!queue.offer(sms)) {
+                queueFullCounter.increment();
+                log.warn("SMS outbox full, dropping retry to: {}", sms.toPhoneNumber());
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,19 +1,15 @@
 package com.qulron.qulron_engine.service;
 
+import com.qulron.qulron_engine.dto.DriverPrincipal;
 import com.qulron.qulron_engine.dto.TrailerDTO;
-import com.qulron.qulron_engine.entity.LoadMaster;
 import com.qulron.qulron_engine.entity.Trailer;
-import com.qulron.qulron_engine.enums.Status;
 import com.qulron.qulron_engine.repository.LoadMasterRepo;
 import com.qulron.qulron_engine.repository.TrailerRepo;
-import com.qulron.qulron_engine.utility.JWTUtils;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -28,32 +24,26 @@ public class TrailerService {
     private LoadMasterRepo loadMasterRepo;
 
     @Autowired
-    private JWTUtils jwtUtils;
+    private LoadVersionRegistry loadVersionRegistry;
 
-    public TrailerDTO createLoadTrailer(HttpServletRequest request, String trailerNumber) {
+    public TrailerDTO createLoadTrailer(DriverPrincipal principal, String trailerNumber) {
         TrailerDTO response = new TrailerDTO();
         try {
-            String token = extractToken(request);
-            if (token == null) {
+            if (principal == null) {
                 response.setStatusCode(401);
                 response.setMessage("Authorization token is missing");
                 response.setMessageCode("Message_Code_6");
                 return response;
             }
 
-            String phoneNumber = jwtUtils.extractPhoneNumber(token);
-            Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(phoneNumber, List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED));
-
-            if (loadMaster.isEmpty()) {
+            if (!principal.hasActiveLoad()) {
                 response.setStatusCode(400);
                 response.setMessage("Authorization token is invalid");
                 response.setMessageCode("Message_Code_7");
                 return response;
             }
 
-            LoadMaster foundLoad = loadMaster.get();
-
-            Optional<Trailer> existingTrailer = trailerRepo.findByLoadMaster_Id(foundLoad.getId());
+            Optional<Trailer> existingTrailer = trailerRepo.findByLoadMaster_Id(principal.lmId());
 
             if (existingTrailer.isPresent()) {
                 response.setStatusCode(400);
@@ -64,13 +54,14 @@ public class TrailerService {
 
             Trailer trailer = new Trailer();
             trailer.setTrailerNumber(trailerNumber);
-            trailer.setLoadMaster(foundLoad);
+            trailer.setLoadMaster(loadMasterRepo.getReferenceById(principal.lmId()));
             trailer.setRecordCreateId(SYSTEM_USER);
             trailer.setRecordCreateDate(LocalDateTime.now());
 
             Trailer result = trailerRepo.save(trailer);
 
             if (result.getId() > 0) {
+                loadVersionRegistry.bump(principal.phoneNumber());
                 response.setStatusCode(200);
                 response.setMessage("Trailer Submitted, Thank you!!!");
                 response.setMessageCode("Message_Code_9");
@@ -88,33 +79,26 @@ public class TrailerService {
         return response;
     }
 
-    public TrailerDTO trailerCheck(HttpServletRequest request) {
+    public TrailerDTO trailerCheck(DriverPrincipal principal) {
 
         TrailerDTO response = new TrailerDTO();
 
         try {
-            String token = extractToken(request);
-            if (token == null) {
+            if (principal == null) {
                 response.setStatusCode(401);
                 response.setMessage("Authorization token is missing");
                 response.setMessageCode("Message_Code_6");
                 return response;
             }
 
-            String phoneNumber = jwtUtils.extractPhoneNumber(token);
-
-            Optional<LoadMaster> loadMaster = loadMasterRepo.findByPhoneNumberAndLoadStatusIn(phoneNumber, List.of(Status.CREATED, Status.ACTIVATED, Status.STARTED));
-
-            if (loadMaster.isEmpty()) {
+            if (!principal.hasActiveLoad()) {
                 response.setStatusCode(400);
                 response.setMessage("Authorization token is invalid");
                 response.setMessageCode("Message_Code_7");
                 return response;
             }
 
-            LoadMaster foundLoad = loadMaster.get();
-
-            Optional<Trailer> existingTrailer = trailerRepo.findByLoadMaster_Id(foundLoad.getId());
+            Optional<Trailer> existingTrailer = trailerRepo.findByLoadMaster_Id(principal.lmId());
 
             if (existingTrailer.isPresent()) {
                 response.setTrailer(existingTrailer.get());
@@ -156,9 +140,4 @@ public class TrailerService {
         }
         return response;
     }
-
-    private String extractToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        return (token != null && token.startsWith("Bearer ")) ? token.substring(7) : null;
-    }
 }
@@ -0,0 +1,41 @@
+package com.qulron.qulron_engine.service;
+
+import com.twilio.http.NetworkHttpClient;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.Message;
+import com.twilio.type.PhoneNumber;
+import org.apache.http.client.config.RequestConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Twilio SMS, the REST client is built once with connect and read timeouts
+ */
+@Component
+@ConditionalOnProperty(name = "app.sms.gateway", havingValue = "twilio", matchIfMissing = true)
+public class TwilioSmsGateway implements SmsGateway {
+
+    private final TwilioRestClient client;
+    private final PhoneNumber fromPhoneNumber;
+
+    public TwilioSmsGateway(@Value("${twilio.account.sid}") String accountSid,
+                            @Value("${twilio.auth.token}") String authToken,
+                            @Value("${twilio.account.phone}") String fromPhoneNumber,
+                            @Value("${app.sms.timeout-ms:5000}") int timeout) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .build();
+        this.client = new TwilioRestClient.Builder(accountSid, authToken)
+                .httpClient(new NetworkHttpClient(requestConfig))
+                .build();
+        this.fromPhoneNumber = new PhoneNumber(fromPhoneNumber);
+    }
+
+    @Override
+    public void send(String toPhoneNumber, String body) {
+        Message.creator(new PhoneNumber(toPhoneNumber), fromPhoneNumber, body).create(client);
+    }
+}
@@ -2,17 +2,117 @@ package com.qulron.qulron_engine.service;
 
 import com.qulron.qulron_engine.entity.YardLocation;
 import com.qulron.qulron_engine.repository.YardLocationRepo;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.qulron.qulron_engine.utility.YardLocationIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Yard locations from t_yard_location, kept in an in-memory index. Reloaded as soon as
+ * LoadChangeListener hears a change (12_yard_location_notify.sql), and periodically in case
+ * a notification was missed.
+ */
+@Slf4j
 @Service
 public class YardLocationService {
 
-    @Autowired
-    private YardLocationRepo yardLocationRepo;
+    private final YardLocationRepo yardLocationRepo;
+    private final LoadVersionRegistry loadVersionRegistry;
+    private final DriverEventStream driverEventStream;
+    private final long RELOAD_INTERVAL;
+    private volatile YardLocationIndex index = YardLocationIndex.EMPTY;
+    private ScheduledExecutorService scheduler;
+
+    public YardLocationService(YardLocationRepo yardLocationRepo, LoadVersionRegistry loadVersionRegistry,
+                               DriverEventStream driverEventStream,
+                               @Value("${app.yard-location.reload-interval-ms:300000}") long reloadInterval) {
+        this.yardLocationRepo = yardLocationRepo;
+        this.loadVersionRegistry = loadVersionRegistry;
+        this.driverEventStream = driverEventStream;
+        RELOAD_INTERVAL = reloadInterval;
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Yard-Location-Reload");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::reload, RELOAD_INTERVAL, RELOAD_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public YardLocationIndex.Yard getYardLocationData(String taskWarehouseCode, String taskLocation) {
+        return index.find(taskWarehouseCode, taskLocation);
+    }
+
+    public List<YardLocationIndex.Yard> getYardLocationsByArea(String taskWarehouseCode) {
+        return index.findByArea(taskWarehouseCode);
+    }
+
+    /**
+     * Reload on the reload thread, the caller does not wait
+     */
+    public void requestReload() {
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.execute(this::reload);
+        }
+    }
+
+    /**
+     * Rebuild the index from the table, the previous index stays in use if loading fails
+     */
+    public void reload() {
+        try {
+            // Lowest id first, it wins for duplicate area/location pairs
+            List<YardLocationIndex.Yard> yards = yardLocationRepo.findAll(Sort.by("id")).stream()
+                    .map(YardLocationService::toYard)
+                    .toList();
+
+            YardLocationIndex previous = index;
+            YardLocationIndex loaded = new YardLocationIndex(yards);
+            if (loaded.sameYards(previous)) {
+                return;
+            }
+            index = loaded;
+            log.info("Yard location index loaded with {} locations", loaded.size());
+            // Dashboards show yard locations, every driver fetches again and must not get 304
+            loadVersionRegistry.invalidateAll();
+            driverEventStream.publishAll();
+        } catch (Exception e) {
+            log.error("Failed to reload yard locations, keeping {} loaded locations", index.size(), e);
+        }
+    }
 
-    public YardLocation getYardLocationData(String taskWarehouseCode, String taskLocation) {
-        return yardLocationRepo.findByTaskDestinationAreaAndTaskDestinationLocation(taskWarehouseCode, taskLocation)
-                .orElse(null);
+    private static YardLocationIndex.Yard toYard(YardLocation yardLocation) {
+        return new YardLocationIndex.Yard(yardLocation.getTaskDestinationArea(), yardLocation.getTaskDestinationLocation(),
+                yardLocation.getArea(), yardLocation.getLocation(),
+                yardLocation.getLatitude(), yardLocation.getLongitude());
     }
 }
@@ -0,0 +1,83 @@
+package com.qulron.qulron_engine.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.qulron.qulron_engine.dto.LocationFix;
+import com.qulron.qulron_engine.event.ZoneTransitionEvent;
+import com.qulron.qulron_engine.utility.GeofenceIndex;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the zones each load is currently in and publishes a ZoneTransitionEvent when a fix
+ * enters or leaves one. State lives in memory only, so pings that stay in the same zones
+ * cost a geofence lookup and nothing else.
+ */
+@Slf4j
+@Component
+public class ZoneTransitionTracker {
+
+    private final GeofenceService geofenceService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Zones per lm_id as of the newest fix seen
+    private final Cache<@NonNull Long, @NonNull ZoneState> zoneStates = CacheBuilder.newBuilder()
+            .expireAfterAccess(60, TimeUnit.MINUTES)
+            .maximumSize(50_000)
+            .build();
+
+    public ZoneTransitionTracker(GeofenceService geofenceService, ApplicationEventPublisher eventPublisher) {
+        this.geofenceService = geofenceService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    private record ZoneState(Map<String, GeofenceIndex.Zone> zones, long locationTimestamp) {
+    }
+
+    /**
+     * Geofence a fix and publish any enter/exit transitions for the load
+     */
+    public void track(Long lmId, String loadId, LocationFix fix) {
+        Map<String, GeofenceIndex.Zone> current = new HashMap<>();
+        for (GeofenceIndex.Zone zone : geofenceService.findZones(fix.latitude(), fix.longitude())) {
+            current.put(zone.code(), zone);
+        }
+
+        List<ZoneTransitionEvent> events = new ArrayList<>(0);
+        zoneStates.asMap().compute(lmId, (key, previous) -> {
+            // Fixes older than the state would replay an old transition
+            if (previous != null && fix.locationTimestamp() < previous.locationTimestamp()) {
+                return previous;
+            }
+
+            Map<String, GeofenceIndex.Zone> before = previous != null ? previous.zones() : Map.of();
+            for (GeofenceIndex.Zone zone : current.values()) {
+                if (!before.containsKey(zone.code())) {
+                    events.add(toEvent(lmId, loadId, zone, ZoneTransitionEvent.Transition.ENTER, fix));
+                }
+            }
+            for (GeofenceIndex.Zone zone : before.values()) {
+                if (!current.containsKey(zone.code())) {
+                    events.add(toEvent(lmId, loadId, zone, ZoneTransitionEvent.Transition.EXIT, fix));
+                }
+            }
+            return new ZoneState(current, fix.locationTimestamp());
+        });
+
+        for (ZoneTransitionEvent event : events) {
+            log.info("Load: {} {} zone: {}", event.loadId(), event.transition(), event.zoneCode());
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private ZoneTransitionEvent toEvent(Long lmId, String loadId, GeofenceIndex.Zone zone,
+                                        ZoneTransitionEvent.Transition transition, LocationFix fix) {
+        return new ZoneTransitionEvent(lmId, loadId, zone.code(), zone.type(),
+                zone.taskDestinationArea(), transition, fix.locationTimestamp());
+    }
+}
@@ -1,128 +1,151 @@
 package com.qulron.qulron_engine.utility;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
-import java.util.List;
+import java.util.HexFormat;
 
 @Component
 public class DeviceFingerprintUtils {
 
-    // Headers that help identify the device
-    private static final List<String> FINGERPRINT_HEADERS = Arrays.asList(
-            "User-Agent",
-            "Accept-Language",
-            "Accept-Encoding",
-            "Accept",
-            "Cache-Control",
-            "Connection",
-            "Upgrade-Insecure-Requests");
+    private static final HexFormat HEX = HexFormat.of();
+
+    // MessageDigest is not thread safe, one per request thread instead of one per call
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    });
+
+    // The same few devices send the same headers on every request
+    private final Cache<@NonNull FingerprintHeaders, @NonNull String> fingerprints;
+
+    public DeviceFingerprintUtils(MeterRegistry meterRegistry,
+                                  @Value("${app.fingerprint.cache-size:10000}") long cacheSize) {
+        this.fingerprints = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, fingerprints, "device.fingerprint");
+    }
+
+    /**
+     * Raw values of the headers that make up a fingerprint
+     */
+    private record FingerprintHeaders(String userAgent, String acceptLanguage, String acceptEncoding,
+                                      String screenResolution, String deviceModel) {
+    }
 
     /**
      * Generate a device fingerprint from request headers
      * This creates a unique but stable identifier for the device
      */
     public String generateDeviceFingerprint(HttpServletRequest request) {
-        StringBuilder fingerprint = new StringBuilder();
+        FingerprintHeaders headers = new FingerprintHeaders(
+                request.getHeader("User-Agent"),
+                request.getHeader("Accept-Language"),
+                request.getHeader("Accept-Encoding"),
+                // Screen resolution and device model, if the client sends them
+                request.getHeader("X-Screen-Resolution"),
+                request.getHeader("X-Device-Model"));
+
+        String fingerprint = fingerprints.getIfPresent(headers);
+        if (fingerprint == null) {
+            fingerprint = hashFingerprint(describe(headers));
+            fingerprints.put(headers, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private String describe(FingerprintHeaders headers) {
+        StringBuilder fingerprint = new StringBuilder(128);
 
         // Add User-Agent (most important for device identification)
-        String userAgent = request.getHeader("User-Agent");
-        if (userAgent != null) {
-            fingerprint.append("UA:").append(normalizeUserAgent(userAgent));
+        if (headers.userAgent() != null) {
+            fingerprint.append("UA:").append(classifyUserAgent(headers.userAgent()));
         }
 
-        // Add Accept-Language
-        String acceptLanguage = request.getHeader("Accept-Language");
-        if (acceptLanguage != null) {
-            fingerprint.append("|LANG:").append(acceptLanguage.split(",")[0].trim());
+        // Add the preferred language only
+        if (headers.acceptLanguage() != null) {
+            String acceptLanguage = headers.acceptLanguage();
+            int comma = acceptLanguage.indexOf(',');
+            fingerprint.append("|LANG:").append((comma < 0 ? acceptLanguage : acceptLanguage.substring(0, comma)).trim());
         }
 
-        // Add Accept-Encoding
-        String acceptEncoding = request.getHeader("Accept-Encoding");
-        if (acceptEncoding != null) {
-            fingerprint.append("|ENC:").append(acceptEncoding);
+        if (headers.acceptEncoding() != null) {
+            fingerprint.append("|ENC:").append(headers.acceptEncoding());
         }
-
-        // Add screen resolution if available (from custom header)
-        String screenResolution = request.getHeader("X-Screen-Resolution");
-        if (screenResolution != null) {
-            fingerprint.append("|RES:").append(screenResolution);
+        if (headers.screenResolution() != null) {
+            fingerprint.append("|RES:").append(headers.screenResolution());
         }
-
-        // Add device model if available (from custom header)
-        String deviceModel = request.getHeader("X-Device-Model");
-        if (deviceModel != null) {
-            fingerprint.append("|DEV:").append(deviceModel);
+        if (headers.deviceModel() != null) {
+            fingerprint.append("|DEV:").append(headers.deviceModel());
         }
-
-        // Hash the fingerprint for security and consistency
-        return hashFingerprint(fingerprint.toString());
+        return fingerprint.toString();
     }
 
     /**
-     * Normalize User-Agent to focus on device characteristics
+     * Reduce the User-Agent to a device family, matched without lowercasing the header
      */
-    private String normalizeUserAgent(String userAgent) {
-        if (userAgent == null)
-            return "";
-
-        // Extract key device information
-        String normalized = userAgent.toLowerCase();
-
+    private String classifyUserAgent(String userAgent) {
         // Focus on mobile device indicators
-        if (normalized.contains("mobile") || normalized.contains("android") ||
-                normalized.contains("iphone") || normalized.contains("ipad")) {
-            // Extract device family
-            if (normalized.contains("android")) {
-                return "android";
-            } else if (normalized.contains("iphone")) {
-                return "iphone";
-            } else if (normalized.contains("ipad")) {
-                return "ipad";
-            } else {
-                return "mobile";
-            }
+        if (containsIgnoreCase(userAgent, "android")) {
+            return "android";
+        } else if (containsIgnoreCase(userAgent, "iphone")) {
+            return "iphone";
+        } else if (containsIgnoreCase(userAgent, "ipad")) {
+            return "ipad";
+        } else if (containsIgnoreCase(userAgent, "mobile")) {
+            return "mobile";
         }
 
         // For desktop browsers, use a more generic approach
-        if (normalized.contains("chrome")) {
+        if (containsIgnoreCase(userAgent, "chrome")) {
             return "chrome";
-        } else if (normalized.contains("firefox")) {
+        } else if (containsIgnoreCase(userAgent, "firefox")) {
             return "firefox";
-        } else if (normalized.contains("safari")) {
+        } else if (containsIgnoreCase(userAgent, "safari")) {
             return "safari";
-        } else if (normalized.contains("edge")) {
+        } else if (containsIgnoreCase(userAgent, "edge")) {
             return "edge";
         }
 
         return "unknown";
     }
 
+    private static boolean containsIgnoreCase(String value, String lowerCaseNeedle) {
+        char first = lowerCaseNeedle.charAt(0);
+        int last = value.length() - lowerCaseNeedle.length();
+        for (int i = 0; i <= last; i++) {
+            if ((value.charAt(i) | 0x20) == first
+                    && value.regionMatches(true, i + 1, lowerCaseNeedle, 1, lowerCaseNeedle.length() - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Hash the fingerprint for security and consistency
      */
     private String hashFingerprint(String fingerprint) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(fingerprint.getBytes());
-            StringBuilder hexString = new StringBuilder();
-
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
+        MessageDigest md = SHA_256.get();
+        if (md == null) {
             // Fallback to simple hash if SHA-256 is not available
             return String.valueOf(fingerprint.hashCode());
         }
+        return HEX.formatHex(md.digest(fingerprint.getBytes(StandardCharsets.UTF_8)));
     }
 
     /**
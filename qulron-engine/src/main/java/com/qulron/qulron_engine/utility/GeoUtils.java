@@ -0,0 +1,29 @@
+package com.qulron.qulron_engine.utility;
+
+public final class GeoUtils {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Great-circle distance in meters between two WGS84 points (haversine)
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Smallest angle in degrees between two headings, 0..180
+     */
+    public static double headingDelta(double heading1, double heading2) {
+        double delta = Math.abs(heading1 - heading2) % 360.0;
+        return delta > 180.0 ? 360.0 - delta : delta;
+    }
+}
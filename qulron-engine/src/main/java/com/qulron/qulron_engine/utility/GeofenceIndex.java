@@ -0,0 +1,189 @@
+package com.qulron.qulron_engine.utility;
+
+import com.qulron.qulron_engine.enums.ZoneType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable point-in-polygon index over geofence zones.
+ * The area covered by all zones is split into a uniform grid; each cell keeps the zones whose
+ * bounding box overlaps it, so a lookup only ray-casts the few polygons around the point.
+ * A new index is built on every reload and swapped in whole, readers never see a partial one.
+ */
+public final class GeofenceIndex {
+
+    public static final GeofenceIndex EMPTY = new GeofenceIndex(List.of(), 0.001);
+
+    private static final int MAX_CELLS = 1_000_000;
+
+    private final Zone[] zones;
+    private final double minLat;
+    private final double minLng;
+    private final double maxLat;
+    private final double maxLng;
+    private final double cellSize;
+    private final int rows;
+    private final int cols;
+    // Zone positions per cell, row major
+    private final int[][] cells;
+
+    /**
+     * One polygon, vertices as parallel lat/lng arrays (not closed)
+     */
+    public record Zone(String code, ZoneType type, String taskDestinationArea,
+                       double[] lats, double[] lngs,
+                       double minLat, double minLng, double maxLat, double maxLng) {
+
+        public static Zone of(String code, ZoneType type, String taskDestinationArea, double[] lats, double[] lngs) {
+            double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < lats.length; i++) {
+                minLat = Math.min(minLat, lats[i]);
+                maxLat = Math.max(maxLat, lats[i]);
+                minLng = Math.min(minLng, lngs[i]);
+                maxLng = Math.max(maxLng, lngs[i]);
+            }
+            return new Zone(code, type, taskDestinationArea, lats, lngs, minLat, minLng, maxLat, maxLng);
+        }
+
+        public boolean contains(double lat, double lng) {
+            if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+                return false;
+            }
+
+            // Ray casting algorithm
+            boolean isInside = false;
+            int prev = lats.length - 1;
+            for (int i = 0; i < lats.length; i++) {
+                boolean intersects = ((lats[i] > lat) != (lats[prev] > lat)) &&
+                        (lng < (lngs[prev] - lngs[i]) * (lat - lats[i]) / (lats[prev] - lats[i]) + lngs[i]);
+                if (intersects) {
+                    isInside = !isInside;
+                }
+                prev = i;
+            }
+            return isInside;
+        }
+    }
+
+    public GeofenceIndex(List<Zone> zoneList, double cellSizeDegrees) {
+        this.zones = zoneList.toArray(new Zone[0]);
+
+        double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (Zone zone : zones) {
+            minLat = Math.min(minLat, zone.minLat());
+            minLng = Math.min(minLng, zone.minLng());
+            maxLat = Math.max(maxLat, zone.maxLat());
+            maxLng = Math.max(maxLng, zone.maxLng());
+        }
+        this.minLat = minLat;
+        this.minLng = minLng;
+        this.maxLat = maxLat;
+        this.maxLng = maxLng;
+
+        if (zones.length == 0) {
+            this.cellSize = cellSizeDegrees;
+            this.rows = 0;
+            this.cols = 0;
+            this.cells = new int[0][];
+            return;
+        }
+
+        // Widen the cells when zones are spread so far apart that the grid would get too big
+        double size = cellSizeDegrees;
+        while ((long) cellCount(maxLat - minLat, size) * cellCount(maxLng - minLng, size) > MAX_CELLS) {
+            size *= 2;
+        }
+        this.cellSize = size;
+        this.rows = cellCount(maxLat - minLat, size);
+        this.cols = cellCount(maxLng - minLng, size);
+
+        List<List<Integer>> buckets = new ArrayList<>(Collections.nCopies(rows * cols, null));
+        for (int z = 0; z < zones.length; z++) {
+            Zone zone = zones[z];
+            for (int row = row(zone.minLat()); row <= row(zone.maxLat()); row++) {
+                for (int col = col(zone.minLng()); col <= col(zone.maxLng()); col++) {
+                    int cell = row * cols + col;
+                    if (buckets.get(cell) == null) {
+                        buckets.set(cell, new ArrayList<>(2));
+                    }
+                    buckets.get(cell).add(z);
+                }
+            }
+        }
+
+        this.cells = new int[rows * cols][];
+        for (int cell = 0; cell < cells.length; cell++) {
+            List<Integer> bucket = buckets.get(cell);
+            cells[cell] = bucket == null ? null : bucket.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * All zones containing the point, empty when none
+     */
+    public List<Zone> findZones(double lat, double lng) {
+        int[] candidates = candidates(lat, lng);
+        if (candidates == null) {
+            return List.of();
+        }
+
+        List<Zone> result = null;
+        for (int z : candidates) {
+            if (zones[z].contains(lat, lng)) {
+                if (result == null) {
+                    result = new ArrayList<>(2);
+                }
+                result.add(zones[z]);
+            }
+        }
+        return result == null ? List.of() : result;
+    }
+
+    /**
+     * True when any zone of the given type contains the point
+     */
+    public boolean isInside(ZoneType type, double lat, double lng) {
+        int[] candidates = candidates(lat, lng);
+        if (candidates == null) {
+            return false;
+        }
+
+        for (int z : candidates) {
+            if (zones[z].type() == type && zones[z].contains(lat, lng)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return zones.length;
+    }
+
+    public List<Zone> getZones() {
+        return List.of(zones);
+    }
+
+    private int[] candidates(double lat, double lng) {
+        if (zones.length == 0 || lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+            return null;
+        }
+        return cells[row(lat) * cols + col(lng)];
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, (int) ((lat - minLat) / cellSize));
+    }
+
+    private int col(double lng) {
+        return Math.min(cols - 1, (int) ((lng - minLng) / cellSize));
+    }
+
+    private static int cellCount(double span, double size) {
+        return Math.max(1, (int) Math.ceil(span / size));
+    }
+}
@@ -1,10 +1,17 @@
 package com.qulron.qulron_engine.utility;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.qulron.qulron_engine.enums.Role;
 import com.qulron.qulron_engine.exception.JwtAuthenticationException;
+import com.qulron.qulron_engine.service.SessionStateStore;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -15,35 +22,45 @@ import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JWTUtils {
-    private static final int MAX_BLACKLIST_SIZE = 10000;
     private final long EXPIRATION_TIME;
     private final long REFRESH_EXPIRATION_TIME;
-    private final long BLACKLIST_CLEANUP_INTERVAL;
     private final long BLACKLIST_TOKEN_LIFETIME;
-    // Store token with timestamp
-    private final Map<String, Long> blacklistedTokens = new ConcurrentHashMap<>();
+    // Revoked jti until the token's own expiry, shared between instances with app.session-store.type=postgres
+    private final SessionStateStore sessionStateStore;
+    // Verified claims keyed by SHA-256 of the token, so a token is verified about once per TTL
+    // instead of on every extract/validate call of a request
+    private final Cache<@NonNull HashCode, @NonNull VerifiedClaims> claimsCache;
     private SecretKey key;
     @Value("${jwt.secret}")
     private String secretString;
-    private ScheduledExecutorService scheduler;
 
     public JWTUtils(@Value("${jwt.expiration:21600000}") long expirationTime,
                     @Value("${jwt.refresh-expiration:604800000}") long refreshExpirationTime,
-                    @Value("${jwt.blacklist-cleanup-interval:3600000}") long blacklistCleanupInterval,
-                    @Value("${jwt.blacklist-token-lifetime:86400000}") long blacklistTokenLifetime) {
+                    @Value("${jwt.blacklist-token-lifetime:86400000}") long blacklistTokenLifetime,
+                    @Value("${jwt.claims-cache.ttl-ms:300000}") long claimsCacheTtl,
+                    @Value("${jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize,
+                    SessionStateStore sessionStateStore,
+                    MeterRegistry meterRegistry) {
         EXPIRATION_TIME = expirationTime;
         REFRESH_EXPIRATION_TIME = refreshExpirationTime;
-        BLACKLIST_CLEANUP_INTERVAL = blacklistCleanupInterval;
         BLACKLIST_TOKEN_LIFETIME = blacklistTokenLifetime;
+        this.sessionStateStore = sessionStateStore;
+
+        this.claimsCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(claimsCacheTtl, TimeUnit.MILLISECONDS)
+                .maximumSize(claimsCacheMaxSize)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, claimsCache, "jwt.claims");
+    }
+
+    private record VerifiedClaims(Claims claims, long expiresAt) {
     }
 
     @PostConstruct
@@ -51,20 +68,11 @@ public class JWTUtils {
         // Initialize the secret key
         byte[] keyBytes = Base64.getDecoder().decode(secretString.getBytes(StandardCharsets.UTF_8));
         this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
-
-        // Create scheduler
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "JWT-Blacklist-Cleanup");
-            t.setDaemon(true);
-            return t;
-        });
-
-        // Start cleanup scheduler
-        startCleanupScheduler();
     }
 
     public String generateToken(String phoneNumber, Role role, String deviceFingerprint, String location) {
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(phoneNumber)
                 .claim("role", role)
                 .claim("device", deviceFingerprint)
@@ -79,6 +87,7 @@ public class JWTUtils {
     public String generateRefreshToken(HashMap<String, Object> claims, String phoneNumber) {
         return Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(phoneNumber)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + REFRESH_EXPIRATION_TIME))
@@ -86,21 +95,6 @@ public class JWTUtils {
                 .compact();
     }
 
-    @PreDestroy
-    public void shutdown() {
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdown();
-            try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
-
     public String extractPhoneNumber(String token) {
         return extractClaims(token, Claims::getSubject);
     }
@@ -122,6 +116,29 @@ public class JWTUtils {
     }
 
     public Claims extractAllClaims(String token) {
+        if (token == null) {
+            throw new JwtAuthenticationException("Invalid JWT token", new IllegalArgumentException("Token is null"));
+        }
+
+        HashCode tokenKey = Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+        VerifiedClaims cached = claimsCache.getIfPresent(tokenKey);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                return cached.claims();
+            }
+            claimsCache.invalidate(tokenKey);
+            throw new JwtAuthenticationException("JWT token has expired", null);
+        }
+
+        Claims claims = parseClaims(token);
+        // Revoked tokens are never cached, blacklistToken drops the ones already cached
+        if (claims.getExpiration() != null && !isRevoked(claims, token)) {
+            claimsCache.put(tokenKey, new VerifiedClaims(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    private Claims parseClaims(String token) {
         try {
             return Jwts.parser().verifyWith(key)
                     .build()
@@ -184,23 +201,49 @@ public class JWTUtils {
     }
 
     public void blacklistToken(String token) {
-        if (blacklistedTokens.size() >= MAX_BLACKLIST_SIZE) {
-            cleanupExpiredTokens(); // force cleanup if size grows too much
+        claimsCache.invalidate(Hashing.sha256().hashString(token, StandardCharsets.UTF_8));
+
+        Claims claims;
+        try {
+            claims = parseClaims(token);
+        } catch (JwtAuthenticationException e) {
+            // Expired or invalid, it is rejected anyway
+            return;
         }
-        blacklistedTokens.put(token, System.currentTimeMillis());
+
+        // Only needs to be remembered until the token would expire by itself
+        long expiresAt = claims.getExpiration() != null
+                ? claims.getExpiration().getTime()
+                : System.currentTimeMillis() + BLACKLIST_TOKEN_LIFETIME;
+        sessionStateStore.revokeToken(revocationId(claims, token), expiresAt);
     }
 
     public boolean isBlacklisted(String token) {
-        Long blacklistTime = blacklistedTokens.get(token);
-        if (blacklistTime == null)
+        try {
+            return isRevoked(extractAllClaims(token), token);
+        } catch (JwtAuthenticationException e) {
+            // Not a usable token, validation rejects it
             return false;
+        }
+    }
 
-        // Check if token is older than configured lifetime
-        if (System.currentTimeMillis() - blacklistTime > BLACKLIST_TOKEN_LIFETIME) {
-            blacklistedTokens.remove(token);
-            return false;
+    private boolean isRevoked(Claims claims, String token) {
+        return sessionStateStore.isTokenRevoked(revocationId(claims, token));
+    }
+
+    /**
+     * The jti of the token; tokens issued before jti was added are identified by a digest of the token
+     */
+    private UUID revocationId(Claims claims, String token) {
+        String jti = claims.getId();
+        if (jti == null) {
+            return UUID.nameUUIDFromBytes(token.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return UUID.fromString(jti);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(jti.getBytes(StandardCharsets.UTF_8));
         }
-        return true;
     }
 
     private boolean isLocationReasonable(String tokenLocation, String currentLocation) {
@@ -210,14 +253,5 @@ public class JWTUtils {
         return true;
     }
 
-    private void startCleanupScheduler() {
-        scheduler.scheduleAtFixedRate(this::cleanupExpiredTokens,
-                BLACKLIST_CLEANUP_INTERVAL, BLACKLIST_CLEANUP_INTERVAL, TimeUnit.MILLISECONDS);
-    }
-
-    private void cleanupExpiredTokens() {
-        long currentTime = System.currentTimeMillis();
-        blacklistedTokens.entrySet().removeIf(entry -> currentTime - entry.getValue() > BLACKLIST_TOKEN_LIFETIME);
-    }
 }
 
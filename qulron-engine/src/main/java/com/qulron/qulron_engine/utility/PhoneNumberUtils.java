@@ -0,0 +1,59 @@
+package com.qulron.qulron_engine.utility;
+
+public final class PhoneNumberUtils {
+
+    private static final long COUNTRY_CODE = 10_000_000_000L;
+
+    private PhoneNumberUtils() {
+    }
+
+    /**
+     * Digits of a North American number as a long with the country code, 201-341-2426 -> 12013412426.
+     * Separators are ignored; throws IllegalArgumentException unless there are 10 digits, or 11 starting with 1
+     */
+    public static long toKey(String phoneNumber) {
+        if (phoneNumber == null) {
+            throw new IllegalArgumentException("Phone number is required");
+        }
+
+        long key = 0;
+        int digits = 0;
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 11) {
+                    break;
+                }
+                key = key * 10 + (c - '0');
+            }
+        }
+
+        if (digits == 10) {
+            return COUNTRY_CODE + key;
+        }
+        if (digits == 11 && key / COUNTRY_CODE == 1) {
+            return key;
+        }
+        throw new IllegalArgumentException("Not a North American phone number: " + phoneNumber);
+    }
+
+    /**
+     * Whether toKey accepts the number
+     */
+    public static boolean isValid(String phoneNumber) {
+        try {
+            toKey(phoneNumber);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The number of a key in the format loads are stored with, 12013412426 -> 201-341-2426
+     */
+    public static String format(long phoneKey) {
+        long number = phoneKey - COUNTRY_CODE;
+        return String.format("%03d-%03d-%04d", number / 10_000_000, number / 10_000 % 1000, number % 10_000);
+    }
+}
@@ -0,0 +1,105 @@
+package com.qulron.qulron_engine.utility;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked token ids (jti) with the time the token expires anyway.
+ * Lookups check a Bloom filter first, so a token that was never revoked is answered without
+ * touching the map. Entries are kept in expiry order: expired ones are dropped by evictExpired,
+ * and also by revoke once max-size is reached. A token that is still valid is never dropped, the
+ * list grows past max-size instead. The Bloom filter cannot forget ids, it is rebuilt from the
+ * live entries by evictExpired.
+ */
+public final class TokenRevocationList {
+
+    private static final Funnel<UUID> UUID_FUNNEL = (id, into) ->
+            into.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+
+    private final int maxSize;
+    private final double falsePositiveRate;
+
+    private final Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+    // Guarded by this, may hold stale entries for ids revoked twice
+    private final PriorityQueue<Revocation> byExpiry = new PriorityQueue<>(Comparator.comparingLong(Revocation::expiresAt));
+    private volatile BloomFilter<UUID> filter;
+    // Guarded by this, ids dropped by revoke that are still in the filter
+    private int staleInFilter;
+
+    private record Revocation(UUID id, long expiresAt) {
+    }
+
+    public TokenRevocationList(int maxSize, double falsePositiveRate) {
+        this.maxSize = maxSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = newFilter();
+    }
+
+    /**
+     * Revoke an id until expiresAt (epoch millis), returns false when the list holds more than
+     * max-size live entries afterwards
+     */
+    public synchronized boolean revoke(UUID id, long expiresAt, long now) {
+        if (revoked.size() >= maxSize) {
+            // Only expired entries make room, the filter is left for evictExpired to rebuild
+            staleInFilter += dropExpired(now);
+        }
+
+        Long previous = revoked.put(id, expiresAt);
+        if (previous != null && previous > expiresAt) {
+            revoked.put(id, previous);
+        } else {
+            byExpiry.add(new Revocation(id, expiresAt));
+            filter.put(id);
+        }
+        return revoked.size() <= maxSize;
+    }
+
+    public boolean isRevoked(UUID id, long now) {
+        if (!filter.mightContain(id)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(id);
+        return expiresAt != null && expiresAt > now;
+    }
+
+    /**
+     * Drop entries whose token has expired, returns the number dropped
+     */
+    public synchronized int evictExpired(long now) {
+        int evicted = dropExpired(now);
+
+        if (evicted > 0 || staleInFilter > 0) {
+            BloomFilter<UUID> rebuilt = newFilter();
+            revoked.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+            staleInFilter = 0;
+        }
+        return evicted;
+    }
+
+    private int dropExpired(long now) {
+        int dropped = 0;
+        while (!byExpiry.isEmpty() && byExpiry.peek().expiresAt() <= now) {
+            Revocation expired = byExpiry.poll();
+            if (revoked.remove(expired.id(), expired.expiresAt())) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private BloomFilter<UUID> newFilter() {
+        return BloomFilter.create(UUID_FUNNEL, maxSize, falsePositiveRate);
+    }
+}
@@ -0,0 +1,56 @@
+package com.qulron.qulron_engine.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoder for the compacted track stored in t_driver_track.track.
+ * Every fix becomes (lat * 1e6, lng * 1e6, epoch seconds), each value is written as the delta to the
+ * previous fix using the polyline character encoding (zigzag, 5-bit chunks, offset 63) and the
+ * resulting ASCII is GZIP compressed. The admin backend decodes the same format.
+ */
+public final class TrackCodec {
+
+    private static final double SCALE = 1e6;
+
+    private TrackCodec() {
+    }
+
+    /**
+     * Encode fixes in time order, the three arrays must have the same length
+     */
+    public static byte[] encode(double[] lats, double[] lngs, long[] epochSeconds) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(32, lats.length * 6));
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            long prevLat = 0, prevLng = 0, prevTime = 0;
+            for (int i = 0; i < lats.length; i++) {
+                long lat = Math.round(lats[i] * SCALE);
+                long lng = Math.round(lngs[i] * SCALE);
+                long time = epochSeconds[i];
+
+                writeValue(out, lat - prevLat);
+                writeValue(out, lng - prevLng);
+                writeValue(out, time - prevTime);
+
+                prevLat = lat;
+                prevLng = lng;
+                prevTime = time;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode track", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeValue(OutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while (zigzag >= 0x20) {
+            out.write((int) ((0x20 | (zigzag & 0x1f)) + 63));
+            zigzag >>>= 5;
+        }
+        out.write((int) (zigzag + 63));
+    }
+}
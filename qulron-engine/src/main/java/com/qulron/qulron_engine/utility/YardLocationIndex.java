@@ -0,0 +1,75 @@
+package com.qulron.qulron_engine.utility;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index over t_yard_location, keyed by the task destination area and location.
+ * Looking up a task's yard location is one hash probe; the locations of an area are kept
+ * together for area-wide queries. A new index is built on every reload and swapped in whole.
+ */
+public final class YardLocationIndex {
+
+    public static final YardLocationIndex EMPTY = new YardLocationIndex(List.of());
+
+    private final List<Yard> yards;
+    private final Map<Key, Yard> byKey;
+    private final Map<String, List<Yard>> byArea;
+
+    private record Key(String taskDestinationArea, String taskDestinationLocation) {
+    }
+
+    /**
+     * Where a task destination is in the yard
+     */
+    public record Yard(String taskDestinationArea, String taskDestinationLocation,
+                       String area, String location, BigDecimal latitude, BigDecimal longitude) {
+    }
+
+    /**
+     * For duplicate area/location pairs the first yard in the list is kept
+     */
+    public YardLocationIndex(List<Yard> yards) {
+        Map<Key, Yard> byKey = new HashMap<>(Math.max(16, yards.size() * 4 / 3 + 1));
+        Map<String, List<Yard>> byArea = new HashMap<>();
+        for (Yard yard : yards) {
+            if (byKey.putIfAbsent(new Key(yard.taskDestinationArea(), yard.taskDestinationLocation()), yard) == null) {
+                byArea.computeIfAbsent(yard.taskDestinationArea(), area -> new ArrayList<>()).add(yard);
+            }
+        }
+
+        Map<String, List<Yard>> frozenByArea = new HashMap<>(byArea.size() * 4 / 3 + 1);
+        byArea.forEach((area, list) -> frozenByArea.put(area, List.copyOf(list)));
+        this.yards = List.copyOf(yards);
+        this.byKey = byKey;
+        this.byArea = frozenByArea;
+    }
+
+    /**
+     * Yard of a task destination, null when it has none
+     */
+    public Yard find(String taskDestinationArea, String taskDestinationLocation) {
+        return byKey.get(new Key(taskDestinationArea, taskDestinationLocation));
+    }
+
+    /**
+     * All yard locations of a task destination area, empty when none
+     */
+    public List<Yard> findByArea(String taskDestinationArea) {
+        return byArea.getOrDefault(taskDestinationArea, List.of());
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    /**
+     * True when both were built from the same yard locations
+     */
+    public boolean sameYards(YardLocationIndex other) {
+        return yards.equals(other.yards);
+    }
+}
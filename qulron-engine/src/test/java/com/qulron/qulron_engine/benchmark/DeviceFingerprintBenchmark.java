@@ -0,0 +1,119 @@
+package com.qulron.qulron_engine.benchmark;
+
+import com.qulron.qulron_engine.utility.DeviceFingerprintUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Device fingerprint of a repeating request: the original implementation (lowercased
+ * User-Agent, new MessageDigest per call) against DeviceFingerprintUtils with its cache,
+ * and with a cache miss on every call to show the uncached path alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceFingerprintBenchmark {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/124.0.0.0 Mobile Safari/537.36";
+
+    private DeviceFingerprintUtils cached;
+    private DeviceFingerprintUtils uncached;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        cached = new DeviceFingerprintUtils(new SimpleMeterRegistry(), 10_000);
+        uncached = new DeviceFingerprintUtils(new SimpleMeterRegistry(), 0);
+        request = new MockHttpServletRequest();
+        request.addHeader("User-Agent", USER_AGENT);
+        request.addHeader("Accept-Language", "en-US,en;q=0.9");
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+    }
+
+    @Benchmark
+    public String original() {
+        return originalFingerprint(request);
+    }
+
+    @Benchmark
+    public String current() {
+        return cached.generateDeviceFingerprint(request);
+    }
+
+    @Benchmark
+    public String currentCacheMiss() {
+        return uncached.generateDeviceFingerprint(request);
+    }
+
+    private static String originalFingerprint(MockHttpServletRequest request) {
+        StringBuilder fingerprint = new StringBuilder();
+        String userAgent = request.getHeader("User-Agent");
+        if (userAgent != null) {
+            fingerprint.append("UA:").append(originalUserAgent(userAgent));
+        }
+        String acceptLanguage = request.getHeader("Accept-Language");
+        if (acceptLanguage != null) {
+            fingerprint.append("|LANG:").append(acceptLanguage.split(",")[0].trim());
+        }
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding != null) {
+            fingerprint.append("|ENC:").append(acceptEncoding);
+        }
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(fingerprint.toString().getBytes());
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : hash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(fingerprint.toString().hashCode());
+        }
+    }
+
+    private static String originalUserAgent(String userAgent) {
+        String normalized = userAgent.toLowerCase();
+        if (normalized.contains("mobile") || normalized.contains("android") ||
+                normalized.contains("iphone") || normalized.contains("ipad")) {
+            if (normalized.contains("android")) {
+                return "android";
+            } else if (normalized.contains("iphone")) {
+                return "iphone";
+            } else if (normalized.contains("ipad")) {
+                return "ipad";
+            }
+            return "mobile";
+        }
+        if (normalized.contains("chrome")) {
+            return "chrome";
+        } else if (normalized.contains("firefox")) {
+            return "firefox";
+        } else if (normalized.contains("safari")) {
+            return "safari";
+        } else if (normalized.contains("edge")) {
+            return "edge";
+        }
+        return "unknown";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DeviceFingerprintBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.qulron.qulron_engine.benchmark;
+
+import com.qulron.qulron_engine.enums.Role;
+import com.qulron.qulron_engine.service.InMemorySessionStateStore;
+import com.qulron.qulron_engine.utility.JWTUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The token work of one authenticated request: JWTAuthFilter reads the phone number and then
+ * validates the token. Every call verifying and parsing the token again, against JWTUtils with
+ * its verified-claims cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtClaimsBenchmark {
+
+    private SecretKey key;
+    private JWTUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[32];
+        for (int i = 0; i < secret.length; i++) {
+            secret[i] = (byte) (i * 31 + 7);
+        }
+        key = new SecretKeySpec(secret, "HmacSHA256");
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        jwtUtils = new JWTUtils(21_600_000, 604_800_000, 86_400_000, 300_000, 10_000,
+                new InMemorySessionStateStore(meterRegistry, 3_600_000, 1_000_000, 0.001), meterRegistry);
+        ReflectionTestUtils.setField(jwtUtils, "secretString", Base64.getEncoder().encodeToString(secret));
+        jwtUtils.init();
+
+        token = jwtUtils.generateToken("201-341-2426", Role.DRIVER, "fingerprint", "IP:10.0.0.1");
+    }
+
+    @Benchmark
+    public boolean verifyEveryCall() {
+        Claims claims = parse(token);
+        String phoneNumber = claims.getSubject();
+        // isTokenValid parsed once for the blacklist check and once for the claims
+        parse(token);
+        Claims validated = parse(token);
+        return validated.getSubject().equals(phoneNumber) && !validated.getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean cachedClaims() {
+        String phoneNumber = jwtUtils.extractPhoneNumber(token);
+        return jwtUtils.isTokenValid(token, phoneNumber, "fingerprint", null);
+    }
+
+    private Claims parse(String token) {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtClaimsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
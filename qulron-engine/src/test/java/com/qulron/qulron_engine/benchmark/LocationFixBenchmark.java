@@ -0,0 +1,100 @@
+package com.qulron.qulron_engine.benchmark;
+
+import com.qulron.qulron_engine.dto.DriverLocationDTO;
+import com.qulron.qulron_engine.dto.LocationFix;
+import com.qulron.qulron_engine.entity.DriverLocation;
+import com.qulron.qulron_engine.enums.ZoneType;
+import com.qulron.qulron_engine.utility.GeoUtils;
+import com.qulron.qulron_engine.utility.GeofenceIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One location ping from the parsed request to what the buffer holds: validated as BigDecimal
+ * and kept as a DriverLocation entity whose decimals every stage converts again, against
+ * LocationFix with primitive checks. Run with -prof gc to compare allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationFixBenchmark {
+
+    private static final BigDecimal MIN_LATITUDE = BigDecimal.valueOf(-90);
+    private static final BigDecimal MAX_LATITUDE = BigDecimal.valueOf(90);
+    private static final BigDecimal MIN_LONGITUDE = BigDecimal.valueOf(-180);
+    private static final BigDecimal MAX_LONGITUDE = BigDecimal.valueOf(180);
+
+    private static final double PREVIOUS_LATITUDE = 40.5207;
+    private static final double PREVIOUS_LONGITUDE = -74.3266;
+
+    private final GeofenceIndex.Zone facility = GeofenceIndex.Zone.of("FACILITY", ZoneType.FACILITY, null,
+            new double[]{40.5229, 40.5230, 40.5193, 40.5192},
+            new double[]{-74.3242, -74.3258, -74.3264, -74.3248});
+
+    private DriverLocationDTO dto;
+    private LocalDateTime timestamp;
+
+    @Setup
+    public void setUp() {
+        dto = new DriverLocationDTO();
+        dto.setLatitude(new BigDecimal("40.5210811195984"));
+        dto.setLongitude(new BigDecimal("-74.3251809089216"));
+        dto.setAccuracy(new BigDecimal("4.8"));
+        dto.setSpeed(new BigDecimal("3.25"));
+        dto.setHeading(new BigDecimal("182.5"));
+        dto.setAltitude(new BigDecimal("21.7"));
+        dto.setIsMoving(true);
+        dto.setBatteryLevel(76);
+        timestamp = LocalDateTime.of(2025, 6, 1, 12, 0);
+    }
+
+    @Benchmark
+    public boolean decimalFix() {
+        if (dto.getLatitude().compareTo(MAX_LATITUDE) > 0 || dto.getLatitude().compareTo(MIN_LATITUDE) < 0
+                || dto.getLongitude().compareTo(MAX_LONGITUDE) > 0 || dto.getLongitude().compareTo(MIN_LONGITUDE) < 0
+                || dto.getSpeed().compareTo(BigDecimal.ZERO) < 0) {
+            return false;
+        }
+
+        DriverLocation location = new DriverLocation();
+        location.setLatitude(dto.getLatitude());
+        location.setLongitude(dto.getLongitude());
+        location.setAccuracy(dto.getAccuracy());
+        location.setSpeed(dto.getSpeed());
+        location.setHeading(dto.getHeading());
+        location.setAltitude(dto.getAltitude());
+        location.setIsMoving(dto.getIsMoving());
+        location.setBatteryLevel(dto.getBatteryLevel());
+        location.setLocationTimestamp(timestamp);
+
+        // Downsampling and geofencing each read the coordinates back as doubles
+        double distance = GeoUtils.distanceMeters(PREVIOUS_LATITUDE, PREVIOUS_LONGITUDE,
+                location.getLatitude().doubleValue(), location.getLongitude().doubleValue());
+        return distance > 0 && facility.contains(location.getLatitude().doubleValue(), location.getLongitude().doubleValue());
+    }
+
+    @Benchmark
+    public boolean primitiveFix() {
+        LocationFix fix = LocationFix.from(dto, timestamp);
+        if (!(fix.latitude() >= -90 && fix.latitude() <= 90) || !(fix.longitude() >= -180 && fix.longitude() <= 180)
+                || fix.speed() < 0) {
+            return false;
+        }
+
+        double distance = GeoUtils.distanceMeters(PREVIOUS_LATITUDE, PREVIOUS_LONGITUDE, fix.latitude(), fix.longitude());
+        return distance > 0 && facility.contains(fix.latitude(), fix.longitude());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LocationFixBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.dto.LocationFix;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationDownsamplerTest {
+
+    private static final long LM_ID = 42L;
+    private static final long T0 = 1_700_000_000_000L;
+    private static final double LAT = 40.5207;
+    private static final double LNG = -74.3266;
+    // About 11 m of latitude
+    private static final double TEN_METERS = 0.0001;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // 25 m, 20 degrees, 5 minutes keep-alive
+    private final LocationDownsampler downsampler = new LocationDownsampler(meterRegistry, true, 25, 20, 5);
+
+    @Test
+    void firstFixOfALoadIsStored() {
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 90, null, T0)));
+    }
+
+    @Test
+    void stationaryFixCloseToTheLastStoredOneIsDropped() {
+        commit(fix(LAT, LNG, 90, false, T0));
+
+        assertFalse(downsampler.shouldStore(LM_ID, fix(LAT + TEN_METERS, LNG, 95, false, T0 + 10_000)));
+        // Missing movement flag and heading are treated as not moving and not turning
+        assertFalse(downsampler.shouldStore(LM_ID, fix(LAT, LNG, Double.NaN, null, T0 + 10_000)));
+    }
+
+    @Test
+    void significantFixesAreStored() {
+        commit(fix(LAT, LNG, 90, false, T0));
+
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 90, true, T0 + 1000)), "moving");
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT + 3 * TEN_METERS, LNG, 90, false, T0 + 1000)), "distance");
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 120, false, T0 + 1000)), "heading");
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 90, false, T0 + TimeUnit.MINUTES.toMillis(5))), "keep-alive");
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 90, false, T0 - 1000)), "late fix");
+    }
+
+    @Test
+    void headingDeltaWrapsAroundNorth() {
+        commit(fix(LAT, LNG, 355, false, T0));
+
+        assertFalse(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 5, false, T0 + 1000)));
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 30, false, T0 + 1000)));
+    }
+
+    @Test
+    void nothingIsRememberedBeforeCommit() {
+        LocationFix first = fix(LAT, LNG, 90, false, T0);
+        assertTrue(downsampler.shouldStore(LM_ID, first));
+        assertEquals(List.of(first), downsampler.selectStored(LM_ID, List.of(first)));
+
+        // Not handed to the buffer, so the next fix is still the first one of the load
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 90, false, T0 + 1000)));
+    }
+
+    @Test
+    void batchIsComparedWithTheLastSelectedFix() {
+        commit(fix(LAT, LNG, 90, false, T0));
+
+        LocationFix near = fix(LAT + TEN_METERS, LNG, 90, false, T0 + 1000);
+        LocationFix far = fix(LAT + 3 * TEN_METERS, LNG, 90, false, T0 + 2000);
+        LocationFix closeToFar = fix(LAT + 4 * TEN_METERS, LNG, 90, false, T0 + 3000);
+        LocationFix farther = fix(LAT + 6 * TEN_METERS, LNG, 90, false, T0 + 4000);
+
+        assertEquals(List.of(far, farther), downsampler.selectStored(LM_ID, List.of(near, far, closeToFar, farther)));
+    }
+
+    @Test
+    void commitKeepsTheNewestFixAsReference() {
+        LocationFix newer = fix(LAT + 3 * TEN_METERS, LNG, 90, false, T0 + 2000);
+        LocationFix older = fix(LAT, LNG, 90, false, T0);
+        downsampler.commit(LM_ID, List.of(newer, older), 0);
+        // A late commit does not move the reference back either
+        downsampler.commit(LM_ID, List.of(fix(LAT, LNG, 90, false, T0 + 1000)), 0);
+
+        assertFalse(downsampler.shouldStore(LM_ID, fix(LAT + 3 * TEN_METERS, LNG, 90, false, T0 + 3000)));
+        assertTrue(downsampler.shouldStore(LM_ID, fix(LAT, LNG, 90, false, T0 + 3000)));
+    }
+
+    @Test
+    void commitCountsStoredAndDroppedFixes() {
+        downsampler.commit(LM_ID, List.of(fix(LAT, LNG, 90, false, T0)), 3);
+
+        assertEquals(1, meterRegistry.get("driver.location.fixes").tag("outcome", "stored").counter().count());
+        assertEquals(3, meterRegistry.get("driver.location.fixes").tag("outcome", "dropped").counter().count());
+    }
+
+    @Test
+    void disabledDownsamplerStoresEverything() {
+        LocationDownsampler disabled = new LocationDownsampler(new SimpleMeterRegistry(), false, 25, 20, 5);
+        LocationFix fix = fix(LAT, LNG, 90, false, T0);
+        disabled.commit(LM_ID, List.of(fix), 0);
+
+        assertTrue(disabled.shouldStore(LM_ID, fix));
+        assertEquals(List.of(fix, fix), disabled.selectStored(LM_ID, List.of(fix, fix)));
+    }
+
+    private void commit(LocationFix fix) {
+        downsampler.commit(LM_ID, List.of(fix), 0);
+    }
+
+    private static LocationFix fix(double lat, double lng, double heading, Boolean moving, long timestamp) {
+        return new LocationFix(lat, lng, 5, 0, heading, Double.NaN, moving,
+                LocationFix.ABSENT, LocationFix.ABSENT, null, timestamp);
+    }
+}
@@ -0,0 +1,113 @@
+package com.qulron.qulron_engine.service;
+
+import com.qulron.qulron_engine.service.SessionStateStore.LoginCheck;
+import com.qulron.qulron_engine.service.SessionStateStore.LoginState;
+import com.qulron.qulron_engine.service.SessionStateStore.Verification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static com.qulron.qulron_engine.service.SessionStateStore.LOGIN_WINDOW_MILLIS;
+import static com.qulron.qulron_engine.service.SessionStateStore.MAX_LOGIN_ATTEMPTS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginStateTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long CODE_TTL = 300_000;
+
+    @Test
+    void matchingCodeConsumesTheState() {
+        LoginState state = LoginState.EMPTY.withCode("123456", NOW + CODE_TTL, NOW);
+        assertEquals(new Verification(LoginCheck.VERIFIED, null), state.verify("123456", NOW + 1000));
+    }
+
+    @Test
+    void wrongCodeCountsAFailedLoginAndKeepsTheCode() {
+        LoginState state = LoginState.EMPTY.withCode("123456", NOW + CODE_TTL, NOW);
+        Verification first = state.verify("000000", NOW + 1000);
+        assertEquals(LoginCheck.INVALID_CODE, first.check());
+        assertEquals(new LoginState("123456", NOW + CODE_TTL, 1, NOW + 1000), first.next());
+
+        // The window starts at the first failure only
+        Verification second = first.next().verify("111111", NOW + 2000);
+        assertEquals(LoginCheck.INVALID_CODE, second.check());
+        assertEquals(2, second.next().attempts());
+        assertEquals(NOW + 1000, second.next().windowStart());
+    }
+
+    @Test
+    void expiredOrMissingCodeNeverVerifies() {
+        LoginState state = LoginState.EMPTY.withCode("123456", NOW + CODE_TTL, NOW);
+        assertEquals(LoginCheck.INVALID_CODE, state.verify("123456", NOW + CODE_TTL).check());
+        Verification missing = LoginState.EMPTY.verify(null, NOW);
+        assertEquals(LoginCheck.INVALID_CODE, missing.check());
+        assertEquals(1, missing.next().attempts());
+    }
+
+    @Test
+    void rateLimitedAfterMaxFailuresEvenWithTheRightCode() {
+        LoginState state = failed(LoginState.EMPTY.withCode("123456", NOW + CODE_TTL, NOW), MAX_LOGIN_ATTEMPTS);
+        assertTrue(state.isRateLimited(NOW + 10_000));
+        assertEquals(new Verification(LoginCheck.RATE_LIMITED, state), state.verify("123456", NOW + 10_000));
+    }
+
+    @Test
+    void failuresAreForgottenOnceTheWindowPassed() {
+        LoginState state = failed(LoginState.EMPTY, MAX_LOGIN_ATTEMPTS);
+        long afterWindow = NOW + LOGIN_WINDOW_MILLIS;
+
+        assertFalse(state.isRateLimited(afterWindow));
+        assertEquals(0, state.current(afterWindow).attempts());
+
+        LoginState withCode = state.withCode("654321", afterWindow + CODE_TTL, afterWindow);
+        assertEquals(0, withCode.attempts());
+        assertEquals(LoginCheck.VERIFIED, withCode.verify("654321", afterWindow + 1000).check());
+    }
+
+    @Test
+    void newCodeKeepsTheFailuresOfTheWindow() {
+        LoginState state = failed(LoginState.EMPTY.withCode("123456", NOW + CODE_TTL, NOW), 2);
+
+        LoginState withNewCode = state.withCode("999999", NOW + 2 * CODE_TTL, NOW + 60_000);
+
+        assertEquals("999999", withNewCode.code());
+        assertEquals(2, withNewCode.attempts());
+        assertEquals(NOW, withNewCode.windowStart());
+    }
+
+    @Test
+    void expiresWhenBothCodeAndWindowHaveExpired() {
+        assertEquals(NOW + CODE_TTL, LoginState.EMPTY.withCode("123456", NOW + CODE_TTL, NOW).expiresAt());
+        assertEquals(NOW + LOGIN_WINDOW_MILLIS, failed(LoginState.EMPTY, 1).expiresAt());
+    }
+
+    @Test
+    void inMemoryStoreAppliesTheTransitions() {
+        InMemorySessionStateStore store = new InMemorySessionStateStore(new SimpleMeterRegistry(), 3_600_000, 1000, 0.001);
+        long phoneKey = 12013412426L;
+
+        store.putVerificationCode(phoneKey, "123456", CODE_TTL);
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS - 1; i++) {
+            assertEquals(LoginCheck.INVALID_CODE, store.verifyCode(phoneKey, "000000"));
+        }
+        assertFalse(store.isRateLimited(phoneKey));
+        assertEquals(LoginCheck.VERIFIED, store.verifyCode(phoneKey, "123456"));
+
+        // Consumed together with the failed logins
+        assertEquals(LoginCheck.INVALID_CODE, store.verifyCode(phoneKey, "123456"));
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS - 1; i++) {
+            store.verifyCode(phoneKey, "000000");
+        }
+        assertTrue(store.isRateLimited(phoneKey));
+        store.putVerificationCode(phoneKey, "222222", CODE_TTL);
+        assertEquals(LoginCheck.RATE_LIMITED, store.verifyCode(phoneKey, "222222"));
+    }
+
+    // The state after the given number of wrong codes, the first one at NOW
+    private static LoginState failed(LoginState state, int failures) {
+        for (int i = 0; i < failures; i++) {
+            state = state.verify("wrong", NOW + i).next();
+        }
+        return state;
+    }
+}
@@ -0,0 +1,110 @@
+package com.qulron.qulron_engine.utility;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Fingerprints are stored in issued tokens, so they must stay exactly what the original
+ * implementation produced: SHA-256 hex of "UA:family|LANG:first language|ENC:...|RES:...|DEV:..."
+ */
+class DeviceFingerprintUtilsTest {
+
+    private static final String ANDROID_CHROME = "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/124.0.0.0 Mobile Safari/537.36";
+    private static final String IPHONE_SAFARI = "Mozilla/5.0 (iPhone; CPU iPhone OS 17_4 like Mac OS X) "
+            + "AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.4 Mobile/15E148 Safari/604.1";
+    private static final String IPAD_SAFARI = "Mozilla/5.0 (iPad; CPU OS 17_4 like Mac OS X) AppleWebKit/605.1.15 "
+            + "(KHTML, like Gecko) Version/17.4 Safari/604.1";
+    private static final String WINDOWS_EDGE = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36 Edg/124.0.0.0";
+    private static final String WINDOWS_FIREFOX = "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:125.0) Gecko/20100101 Firefox/125.0";
+    private static final String MAC_SAFARI = "Mozilla/5.0 (Macintosh; Intel Mac OS X 14_4) AppleWebKit/605.1.15 "
+            + "(KHTML, like Gecko) Version/17.4 Safari/605.1.15";
+
+    private final DeviceFingerprintUtils fingerprintUtils = new DeviceFingerprintUtils(new SimpleMeterRegistry(), 100);
+
+    @Test
+    void classifiesUserAgentsLikeBefore() {
+        assertEquals(sha256("UA:android"), fingerprint(ANDROID_CHROME, null, null));
+        assertEquals(sha256("UA:iphone"), fingerprint(IPHONE_SAFARI, null, null));
+        assertEquals(sha256("UA:ipad"), fingerprint(IPAD_SAFARI, null, null));
+        assertEquals(sha256("UA:mobile"), fingerprint("SomeApp/2.1 MOBILE", null, null));
+        assertEquals(sha256("UA:chrome"), fingerprint(WINDOWS_EDGE, null, null));
+        assertEquals(sha256("UA:firefox"), fingerprint(WINDOWS_FIREFOX, null, null));
+        assertEquals(sha256("UA:safari"), fingerprint(MAC_SAFARI, null, null));
+        assertEquals(sha256("UA:edge"), fingerprint("Edge", null, null));
+        assertEquals(sha256("UA:unknown"), fingerprint("okhttp/4.12.0", null, null));
+        assertEquals(sha256("UA:unknown"), fingerprint("", null, null));
+    }
+
+    @Test
+    void keepsOnlyThePreferredLanguage() {
+        assertEquals(sha256("UA:android|LANG:en-US|ENC:gzip, deflate, br"),
+                fingerprint(ANDROID_CHROME, "en-US,en;q=0.9", "gzip, deflate, br"));
+        assertEquals(sha256("UA:android|LANG:es"), fingerprint(ANDROID_CHROME, " es ", null));
+        assertEquals(sha256("UA:android|LANG:"), fingerprint(ANDROID_CHROME, ",en", null));
+    }
+
+    @Test
+    void includesDeviceHeadersWhenSent() {
+        MockHttpServletRequest request = request(IPHONE_SAFARI, "en-US", "gzip");
+        request.addHeader("X-Screen-Resolution", "1179x2556");
+        request.addHeader("X-Device-Model", "iPhone15,2");
+
+        assertEquals(sha256("UA:iphone|LANG:en-US|ENC:gzip|RES:1179x2556|DEV:iPhone15,2"),
+                fingerprintUtils.generateDeviceFingerprint(request));
+    }
+
+    @Test
+    void withoutHeadersFingerprintsTheEmptyDescription() {
+        assertEquals(sha256(""), fingerprintUtils.generateDeviceFingerprint(new MockHttpServletRequest()));
+    }
+
+    @Test
+    void cachedFingerprintsMatchFreshOnes() {
+        String first = fingerprint(ANDROID_CHROME, "en-US", "gzip");
+        String second = fingerprint(ANDROID_CHROME, "en-US", "gzip");
+        String otherLanguage = fingerprint(ANDROID_CHROME, "de-DE", "gzip");
+
+        assertEquals(first, second);
+        assertNotEquals(first, otherLanguage);
+        assertEquals(first, new DeviceFingerprintUtils(new SimpleMeterRegistry(), 100)
+                .generateDeviceFingerprint(request(ANDROID_CHROME, "en-US", "gzip")));
+    }
+
+    private String fingerprint(String userAgent, String acceptLanguage, String acceptEncoding) {
+        return fingerprintUtils.generateDeviceFingerprint(request(userAgent, acceptLanguage, acceptEncoding));
+    }
+
+    private static MockHttpServletRequest request(String userAgent, String acceptLanguage, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (userAgent != null) {
+            request.addHeader("User-Agent", userAgent);
+        }
+        if (acceptLanguage != null) {
+            request.addHeader("Accept-Language", acceptLanguage);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        return request;
+    }
+
+    private static String sha256(String description) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(description.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
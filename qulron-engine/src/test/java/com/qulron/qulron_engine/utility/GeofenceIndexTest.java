@@ -0,0 +1,104 @@
+package com.qulron.qulron_engine.utility;
+
+import com.qulron.qulron_engine.enums.ZoneType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeofenceIndexTest {
+
+    // Keasby warehouse area
+    private static final GeofenceIndex.Zone FACILITY = GeofenceIndex.Zone.of("KEASBY", ZoneType.FACILITY, "KEASBY",
+            new double[]{40.522854961560824, 40.523019837006935, 40.51931974045873, 40.51916455501402},
+            new double[]{-74.32416972109392, -74.32577733084416, -74.32644716824011, -74.32483317908607});
+
+    // Dock square inside the facility
+    private static final GeofenceIndex.Zone DOCK = GeofenceIndex.Zone.of("DOCK-1", ZoneType.DOCK, "KEASBY",
+            new double[]{40.5210, 40.5210, 40.5214, 40.5214},
+            new double[]{-74.3254, -74.3250, -74.3250, -74.3254});
+
+    // Concave L shape, its notch is inside the bounding box but outside the zone
+    private static final GeofenceIndex.Zone YARD = GeofenceIndex.Zone.of("YARD", ZoneType.YARD, "EDISON",
+            new double[]{40.5300, 40.5300, 40.5310, 40.5310, 40.5320, 40.5320},
+            new double[]{-74.3300, -74.3280, -74.3280, -74.3290, -74.3290, -74.3300});
+
+    @Test
+    void findsEveryZoneContainingThePoint() {
+        GeofenceIndex index = new GeofenceIndex(List.of(FACILITY, DOCK, YARD), 0.001);
+
+        assertEquals(List.of(FACILITY, DOCK), index.findZones(40.5212, -74.3252));
+        assertEquals(List.of(FACILITY), index.findZones(40.5200, -74.3256));
+        assertEquals(List.of(YARD), index.findZones(40.5315, -74.3295));
+        assertEquals(List.of(), index.findZones(40.5250, -74.3270));
+    }
+
+    @Test
+    void isInsideChecksTheZoneType() {
+        GeofenceIndex index = new GeofenceIndex(List.of(FACILITY, DOCK, YARD), 0.001);
+
+        assertTrue(index.isInside(ZoneType.FACILITY, 40.5212, -74.3252));
+        assertTrue(index.isInside(ZoneType.DOCK, 40.5212, -74.3252));
+        assertFalse(index.isInside(ZoneType.DOCK, 40.5200, -74.3256));
+        assertFalse(index.isInside(ZoneType.GATE, 40.5212, -74.3252));
+    }
+
+    @Test
+    void concaveNotchIsOutside() {
+        GeofenceIndex index = new GeofenceIndex(List.of(YARD), 0.0001);
+
+        assertTrue(index.isInside(ZoneType.YARD, 40.5305, -74.3285));
+        assertFalse(index.isInside(ZoneType.YARD, 40.5315, -74.3285));
+    }
+
+    @Test
+    void pointsOutsideTheGridAreInNoZone() {
+        GeofenceIndex index = new GeofenceIndex(List.of(FACILITY, YARD), 0.001);
+
+        assertEquals(List.of(), index.findZones(0, 0));
+        assertEquals(List.of(), index.findZones(40.5400, -74.3270));
+        assertFalse(index.isInside(ZoneType.FACILITY, -90, 180));
+    }
+
+    @Test
+    void emptyIndexContainsNothing() {
+        assertEquals(0, GeofenceIndex.EMPTY.size());
+        assertEquals(List.of(), GeofenceIndex.EMPTY.findZones(40.5212, -74.3252));
+        assertFalse(GeofenceIndex.EMPTY.isInside(ZoneType.FACILITY, 40.5212, -74.3252));
+    }
+
+    @Test
+    void widelySpreadZonesStillResolve() {
+        GeofenceIndex.Zone remote = GeofenceIndex.Zone.of("LA", ZoneType.FACILITY, "LA",
+                new double[]{34.00, 34.00, 34.01, 34.01},
+                new double[]{-118.01, -118.00, -118.00, -118.01});
+        // A 0.00001 degree grid over the whole span would be far above the cell limit
+        GeofenceIndex index = new GeofenceIndex(List.of(FACILITY, remote), 0.00001);
+
+        assertEquals(List.of(FACILITY), index.findZones(40.5200, -74.3256));
+        assertEquals(List.of(remote), index.findZones(34.005, -118.005));
+    }
+
+    @Test
+    void gridAgreesWithScanningEveryZone() {
+        List<GeofenceIndex.Zone> zones = List.of(FACILITY, DOCK, YARD);
+        GeofenceIndex index = new GeofenceIndex(zones, 0.0005);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            double lat = 40.518 + random.nextDouble() * 0.016;
+            double lng = -74.332 + random.nextDouble() * 0.010;
+
+            List<GeofenceIndex.Zone> expected = new ArrayList<>();
+            for (GeofenceIndex.Zone zone : zones) {
+                if (zone.contains(lat, lng)) {
+                    expected.add(zone);
+                }
+            }
+            assertEquals(expected, index.findZones(lat, lng), () -> "at " + lat + ", " + lng);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.qulron.qulron_engine.utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneNumberUtilsTest {
+
+    @Test
+    void separatorsAndCountryCodeGiveTheSameKey() {
+        assertEquals(12013412426L, PhoneNumberUtils.toKey("201-341-2426"));
+        assertEquals(12013412426L, PhoneNumberUtils.toKey("(201) 341 2426"));
+        assertEquals(12013412426L, PhoneNumberUtils.toKey("+1 201-341-2426"));
+    }
+
+    @Test
+    void unparseableNumbersAreRejected() {
+        for (String phoneNumber : new String[]{null, "", "no digits", "341-2426", "2-201-341-2426", "1201341242600000000"}) {
+            assertThrows(IllegalArgumentException.class, () -> PhoneNumberUtils.toKey(phoneNumber), phoneNumber);
+            assertFalse(PhoneNumberUtils.isValid(phoneNumber), phoneNumber);
+        }
+    }
+
+    @Test
+    void formatGivesTheStoredSpelling() {
+        assertEquals("201-341-2426", PhoneNumberUtils.format(PhoneNumberUtils.toKey("+1 (201) 341-2426")));
+        assertEquals("001-002-0003", PhoneNumberUtils.format(PhoneNumberUtils.toKey("0010020003")));
+    }
+}
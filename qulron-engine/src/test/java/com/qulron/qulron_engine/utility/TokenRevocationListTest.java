@@ -0,0 +1,109 @@
+package com.qulron.qulron_engine.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void revokedUntilTheTokenExpires() {
+        TokenRevocationList list = new TokenRevocationList(100, 0.001);
+        UUID id = UUID.randomUUID();
+
+        assertTrue(list.revoke(id, NOW + 1000, NOW));
+
+        assertTrue(list.isRevoked(id, NOW));
+        assertTrue(list.isRevoked(id, NOW + 999));
+        assertFalse(list.isRevoked(id, NOW + 1000));
+        assertFalse(list.isRevoked(UUID.randomUUID(), NOW));
+    }
+
+    @Test
+    void revokingAgainKeepsTheLaterExpiry() {
+        TokenRevocationList list = new TokenRevocationList(100, 0.001);
+        UUID id = UUID.randomUUID();
+
+        list.revoke(id, NOW + 5000, NOW);
+        list.revoke(id, NOW + 1000, NOW);
+
+        assertEquals(1, list.size());
+        assertTrue(list.isRevoked(id, NOW + 4000));
+
+        // The entry of the first revoke is the live one, evicting the older expiry must not drop it
+        assertEquals(0, list.evictExpired(NOW + 2000));
+        assertTrue(list.isRevoked(id, NOW + 4000));
+    }
+
+    @Test
+    void evictExpiredDropsOnlyExpiredEntries() {
+        TokenRevocationList list = new TokenRevocationList(100, 0.001);
+        UUID expired = UUID.randomUUID();
+        UUID live = UUID.randomUUID();
+        list.revoke(expired, NOW + 1000, NOW);
+        list.revoke(live, NOW + 5000, NOW);
+
+        assertEquals(1, list.evictExpired(NOW + 1000));
+
+        assertEquals(1, list.size());
+        assertFalse(list.isRevoked(expired, NOW + 1000));
+        assertTrue(list.isRevoked(live, NOW + 1000));
+        assertEquals(0, list.evictExpired(NOW + 1000));
+    }
+
+    @Test
+    void fullListMakesRoomFromExpiredEntries() {
+        TokenRevocationList list = new TokenRevocationList(3, 0.001);
+        UUID expired = UUID.randomUUID();
+        list.revoke(expired, NOW + 100, NOW);
+        list.revoke(UUID.randomUUID(), NOW + 10_000, NOW);
+        list.revoke(UUID.randomUUID(), NOW + 10_000, NOW);
+
+        UUID added = UUID.randomUUID();
+        assertTrue(list.revoke(added, NOW + 10_000, NOW + 500));
+
+        assertEquals(3, list.size());
+        assertFalse(list.isRevoked(expired, NOW + 500));
+        assertTrue(list.isRevoked(added, NOW + 500));
+    }
+
+    @Test
+    void fullListNeverDropsTokensThatAreStillValid() {
+        TokenRevocationList list = new TokenRevocationList(3, 0.001);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            assertTrue(list.revoke(id, NOW + 10_000 + i, NOW));
+        }
+
+        UUID overflow = UUID.randomUUID();
+        assertFalse(list.revoke(overflow, NOW + 20_000, NOW));
+
+        assertEquals(4, list.size());
+        ids.forEach(id -> assertTrue(list.isRevoked(id, NOW)));
+        assertTrue(list.isRevoked(overflow, NOW));
+    }
+
+    @Test
+    void idsDroppedByRevokeStayForgottenAfterEviction() {
+        TokenRevocationList list = new TokenRevocationList(1, 0.001);
+        UUID expired = UUID.randomUUID();
+        UUID live = UUID.randomUUID();
+        list.revoke(expired, NOW + 100, NOW);
+        list.revoke(live, NOW + 10_000, NOW + 200);
+
+        // Nothing left to expire, but the filter still holds the dropped id until rebuilt
+        assertEquals(0, list.evictExpired(NOW + 200));
+
+        assertEquals(1, list.size());
+        assertFalse(list.isRevoked(expired, NOW));
+        assertTrue(list.isRevoked(live, NOW + 200));
+    }
+}
@@ -2,7 +2,15 @@ import { ChangeDetectorRef, Component, OnDestroy, OnInit } from '@angular/core';
 import { DriverDashboardData } from '../../core/models/interface/driver-dashboard.interface';
 import { CreateOrderTrailerComponent } from './create-order-trailer/create-order-trailer.component';
 import { DriverService } from '../../core/service/driver.service';
-import { catchError, EMPTY, switchMap, take } from 'rxjs';
+import {
+  catchError,
+  EMPTY,
+  retry,
+  Subscription,
+  switchMap,
+  take,
+  tap,
+} from 'rxjs';
 import { PopupService } from '../../core/service/popup.service';
 import { UserManagementService } from '../../core/service/user-management.service';
 import { CommonModule } from '@angular/common';
@@ -32,6 +40,11 @@ export class DriverDashboardComponent implements OnInit, OnDestroy {
   private pollingInterval: any;
   private isPolling = false;
 
+  // Dashboard changes pushed by the server, polling only runs while it is down
+  private eventStreamSubscription: Subscription | null = null;
+  private isStreaming = false;
+  private refreshPending = false;
+
   // Location tracking properties
   driverLocation: DriverLocation | null = null;
   locationError: string | null = null;
@@ -117,15 +130,48 @@ export class DriverDashboardComponent implements OnInit, OnDestroy {
     if (this.isPolling) return;
 
     this.isPolling = true;
+    this.startEventStream();
     this.pollingInterval = setInterval(() => {
-      this.pollForDestinationUpdates();
+      if (!this.isStreaming || (this.refreshPending && !document.hidden)) {
+        this.refreshPending = false;
+        this.pollForDestinationUpdates();
+      }
       if (!this.driverArrived && this.isLocationTracking) {
         this.validateDriverArrivalStatus();
       }
     }, 8000); // 8 seconds - good balance
   }
 
+  startEventStream() {
+    if (this.eventStreamSubscription) return;
+
+    this.eventStreamSubscription = this.driverService
+      .streamDashboardChanges()
+      .pipe(
+        tap({ error: () => (this.isStreaming = false) }),
+        retry({ delay: 5000 })
+      )
+      .subscribe((event) => {
+        if (event === 'ready') {
+          // Changes may have been missed while the stream was down
+          this.isStreaming = true;
+          this.pollForDestinationUpdates();
+        } else if (event === 'load-change') {
+          if (document.hidden) {
+            this.refreshPending = true;
+          } else {
+            this.pollForDestinationUpdates();
+          }
+        }
+      });
+  }
+
   stopPolling() {
+    if (this.eventStreamSubscription) {
+      this.eventStreamSubscription.unsubscribe();
+      this.eventStreamSubscription = null;
+      this.isStreaming = false;
+    }
     if (this.pollingInterval) {
       clearInterval(this.pollingInterval);
       this.pollingInterval = null;
@@ -102,6 +102,56 @@ export class DriverService {
     );
   }
 
+  // Event names pushed by the server when the dashboard should be fetched again.
+  // EventSource cannot send the Authorization header, so the stream is read with fetch
+  streamDashboardChanges(): Observable<string> {
+    const url = `${this.BASE_URL}/data/stream`;
+    return new Observable<string>((subscriber) => {
+      const controller = new AbortController();
+      const token = this.userManagementService.getToken();
+      fetch(url, {
+        headers: {
+          Authorization: `Bearer ${token}`,
+          Accept: 'text/event-stream',
+        },
+        signal: controller.signal,
+      })
+        .then(async (response) => {
+          if (!response.ok || !response.body) {
+            throw new Error(`Driver event stream failed: ${response.status}`);
+          }
+          const reader = response.body
+            .pipeThrough(new TextDecoderStream())
+            .getReader();
+          let buffer = '';
+          while (true) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += value;
+            // Events end with a blank line, heartbeats are comments without an event name
+            let boundary;
+            while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+              const block = buffer.slice(0, boundary);
+              buffer = buffer.slice(boundary + 2);
+              const eventLine = block
+                .split('\n')
+                .find((line) => line.startsWith('event:'));
+              if (eventLine) {
+                subscriber.next(eventLine.slice(6).trim());
+              }
+            }
+          }
+          subscriber.error(new Error('Driver event stream closed'));
+        })
+        .catch((error) => {
+          if (!controller.signal.aborted) {
+            subscriber.error(error);
+          }
+        });
+      return () => controller.abort();
+    });
+  }
+
   confirmDriverArrival(
     isLocationTracking: boolean,
     driverLat: number,